@@ -9,15 +9,20 @@ import com.google.inject.Injector;
 import com.jonahseguin.payload.PayloadAPI;
 import com.jonahseguin.payload.PayloadMode;
 import com.jonahseguin.payload.base.error.ErrorService;
+import com.jonahseguin.payload.base.index.PayloadIndex;
+import com.jonahseguin.payload.base.index.PayloadIndexType;
 import com.jonahseguin.payload.base.lang.PLangService;
 import com.jonahseguin.payload.base.settings.CacheSettings;
 import com.jonahseguin.payload.base.store.PayloadRemoteStore;
 import com.jonahseguin.payload.base.store.PayloadStore;
+import com.jonahseguin.payload.base.task.PayloadWriteBehindQueue;
 import com.jonahseguin.payload.base.type.Payload;
 import com.jonahseguin.payload.base.type.PayloadController;
 import com.jonahseguin.payload.base.type.PayloadInstantiator;
+import com.jonahseguin.payload.base.update.PayloadUpdater;
 import com.jonahseguin.payload.database.DatabaseDependent;
 import com.jonahseguin.payload.database.DatabaseService;
+import dev.morphia.query.FindOptions;
 import dev.morphia.query.filters.Filter;
 import org.bson.BsonDocument;
 import org.bson.Document;
@@ -27,6 +32,8 @@ import org.bukkit.plugin.Plugin;
 import javax.annotation.Nonnull;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 public interface Cache<K, X extends Payload<K>> extends Service, DatabaseDependent {
 
@@ -36,6 +43,17 @@ public interface Cache<K, X extends Payload<K>> extends Service, DatabaseDepende
 
     Collection<X> getWhere(@Nonnull Filter... filters);
 
+    /**
+     * Queries the database in a single round trip, returning already-cached instances in place of the fetched copies.
+     * A projection, limit or sort can be supplied through the options; projected results are returned as-is
+     * (partial objects) and are never merged with or added to the cache.
+     *
+     * @param options the find options (projection, limit, sort, batch size)
+     * @param filters the query filters
+     * @return the matching payloads
+     */
+    Collection<X> getWhere(@Nonnull FindOptions options, @Nonnull Filter... filters);
+
     Optional<X> get(@Nonnull K key);
 
     /**
@@ -48,6 +66,14 @@ public interface Cache<K, X extends Payload<K>> extends Service, DatabaseDepende
 
     Optional<X> getFromDatabase(@Nonnull K key);
 
+    /**
+     * Load several payloads from the database with a single query.  Identifiers that don't exist are left out.
+     *
+     * @param keys the identifiers to load
+     * @return the payloads found
+     */
+    Collection<X> getFromDatabase(@Nonnull Collection<K> keys);
+
     boolean save(@Nonnull X payload);
 
     /**
@@ -87,6 +113,25 @@ public interface Cache<K, X extends Payload<K>> extends Service, DatabaseDepende
     @Nonnull
     Collection<X> getAll();
 
+    /**
+     * Streams every payload (local instances first, then database documents not held locally) without
+     * buffering the database collection.  The stream holds an open cursor and must be closed.
+     *
+     * @return a stream of all payloads, using the configured cursor batch size
+     */
+    @Nonnull
+    Stream<X> streamAll();
+
+    /**
+     * Streams every payload (local instances first, then database documents not held locally) without
+     * buffering the database collection.  The stream holds an open cursor and must be closed.
+     *
+     * @param batchSize the MongoDB cursor batch size
+     * @return a stream of all payloads
+     */
+    @Nonnull
+    Stream<X> streamAll(int batchSize);
+
     @Nonnull
     Collection<X> getCached();
 
@@ -100,15 +145,93 @@ public interface Cache<K, X extends Payload<K>> extends Service, DatabaseDepende
 
     int saveAll();
 
+    /**
+     * Saves the given payloads using batched bulk writes.
+     *
+     * @param payloads the payloads to save
+     * @return the payloads that failed to save (empty if all succeeded)
+     */
+    @Nonnull
+    Collection<X> saveAll(@Nonnull Collection<X> payloads);
+
+    /**
+     * @return how many unchanged payloads the last saveAll skipped (always 0 unless dirty tracking is enabled)
+     */
+    int getLastSaveAllSkipped();
+
+    /**
+     * @return how many times a cached payload had its properties copied from a different (newer) instance
+     */
+    long getMergeCount();
+
+    /**
+     * @return how many merges were skipped because the payload was already cached as the same instance (or, with dirty tracking, an identical copy)
+     */
+    long getMergeSkipCount();
+
     @Nonnull
     PayloadStore<K, X> getLocalStore();
 
+    @Nonnull
+    PayloadWriteBehindQueue<K, X> getWriteBehindQueue();
+
+    PayloadUpdater<K, X> getUpdater();
+
+    /**
+     * Register a secondary index over the locally cached payloads, built immediately from what is already cached.
+     *
+     * @param name      unique index name
+     * @param type      hash (exact lookups) or sorted (exact and range lookups)
+     * @param extractor value to index a payload under (null to leave it out)
+     * @return the index
+     */
+    @Nonnull
+    <V> PayloadIndex<K, X, V> addIndex(@Nonnull String name, @Nonnull PayloadIndexType type, @Nonnull Function<X, V> extractor);
+
+    /**
+     * Register a secondary index where each payload may be indexed under several values (i.e. gang member UUIDs).
+     *
+     * @param name      unique index name
+     * @param type      hash (exact lookups) or sorted (exact and range lookups)
+     * @param extractor values to index a payload under
+     * @return the index
+     */
+    @Nonnull
+    <V> PayloadIndex<K, X, V> addMultiIndex(@Nonnull String name, @Nonnull PayloadIndexType type, @Nonnull Function<X, ? extends Collection<V>> extractor);
+
+    void removeIndex(@Nonnull String name);
+
+    /**
+     * @return cached payloads indexed under the value
+     */
+    @Nonnull
+    <V> Collection<X> getByIndex(@Nonnull String name, @Nonnull V value);
+
+    /**
+     * @return cached payloads indexed under values in [from, to); the index must be sorted
+     */
+    @Nonnull
+    <V> Collection<X> getByIndexRange(@Nonnull String name, @Nonnull V from, @Nonnull V to);
+
+    /**
+     * Refresh a cached payload's index entries after changing it in place.
+     *
+     * @param payload the payload
+     */
+    void reindex(@Nonnull X payload);
+
     @Nonnull
     PayloadRemoteStore<K, X> getDatabaseStore();
 
     @Nonnull
     String getName();
 
+    /**
+     * @return the MongoDB document field holding a payload's identifier (what key lookups filter on)
+     */
+    @Nonnull
+    String getIdentifierFieldName();
+
     @Nonnull
     String getServerSpecificName();
 
@@ -137,6 +260,16 @@ public interface Cache<K, X extends Payload<K>> extends Service, DatabaseDepende
 
     void runAsyncImmediately(@Nonnull Runnable runnable);
 
+    /**
+     * @return tasks submitted through {@link #runAsyncImmediately(Runnable)} that are queued or running
+     */
+    int getPendingAsyncTasks();
+
+    /**
+     * @return tasks submitted through {@link #runAsyncImmediately(Runnable)} that have finished
+     */
+    long getCompletedAsyncTasks();
+
     @Nonnull
     PLangService getLang();
 
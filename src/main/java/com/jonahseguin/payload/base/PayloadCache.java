@@ -6,6 +6,9 @@
 package com.jonahseguin.payload.base;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Singleton;
@@ -14,21 +17,41 @@ import com.jonahseguin.payload.PayloadMode;
 import com.jonahseguin.payload.PayloadPlugin;
 import com.jonahseguin.payload.base.error.CacheErrorService;
 import com.jonahseguin.payload.base.error.ErrorService;
+import com.jonahseguin.payload.base.index.PayloadIndex;
+import com.jonahseguin.payload.base.index.PayloadIndexType;
+import com.jonahseguin.payload.base.index.PayloadIndexValues;
 import com.jonahseguin.payload.base.lang.PLangService;
+import com.jonahseguin.payload.base.settings.ExecutorStrategy;
 import com.jonahseguin.payload.base.store.PayloadRemoteStore;
 import com.jonahseguin.payload.base.store.PayloadStore;
 import com.jonahseguin.payload.base.task.PayloadAutoSaveTask;
+import com.jonahseguin.payload.base.task.PayloadCleanupTask;
+import com.jonahseguin.payload.base.task.PayloadWriteBehindQueue;
 import com.jonahseguin.payload.base.type.Payload;
 import com.jonahseguin.payload.base.type.PayloadInstantiator;
+import com.jonahseguin.payload.base.type.PayloadPropertyCopier;
 import com.jonahseguin.payload.base.update.PayloadUpdater;
 import com.jonahseguin.payload.database.DatabaseService;
 import com.jonahseguin.payload.mode.object.ObjectCache;
 import com.jonahseguin.payload.mode.object.PayloadObject;
 import com.jonahseguin.payload.server.ServerService;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Indexes;
 import dev.morphia.annotations.Entity;
+import dev.morphia.query.FindOptions;
+import dev.morphia.query.MorphiaCursor;
 import dev.morphia.query.Query;
 import dev.morphia.query.filters.Filter;
+import dev.morphia.query.filters.Filters;
 import lombok.Getter;
+import org.bson.BsonBinaryReader;
+import org.bson.ByteBuf;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.conversions.Bson;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
@@ -42,6 +65,11 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The abstract backbone of all Payload cache systems.
@@ -51,6 +79,8 @@ import java.util.concurrent.*;
 @Singleton
 public abstract class PayloadCache<K, X extends Payload<K>> implements Comparable<PayloadCache>, Cache<K, X> {
     protected static final ExecutorService SHARED_EXECUTOR = Executors.newScheduledThreadPool(4);
+    private static final long SHARED_DRAIN_MILLIS = 30_000L;
+    private static volatile boolean draining = false;
 
     private static final Set<PayloadCache> ALL_CACHES = new HashSet<>();
     public static Set<PayloadCache> getAllCaches(){
@@ -58,6 +88,8 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
     }
 
     protected final PayloadAutoSaveTask<K, X> autoSaveTask = new PayloadAutoSaveTask<>(this);
+    protected final PayloadCleanupTask<K, X> cleanupTask = new PayloadCleanupTask<>(this);
+    protected final PayloadWriteBehindQueue<K, X> writeBehindQueue = new PayloadWriteBehindQueue<>(this);
     protected final Set<String> dependingCaches = new HashSet<>();
     protected final Class<K> keyClass;
     protected final Class<X> payloadClass;
@@ -78,6 +110,16 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
     protected String entityName;
     protected MethodHandle noArgsConstructor;
     protected MethodHandle cacheArgConstructor;
+    protected ExecutorService saveExecutor = null;
+    protected ExecutorService asyncExecutor = null; // null when using the shared executor
+    private final AtomicInteger pendingAsyncTasks = new AtomicInteger(0);
+    private final AtomicLong completedAsyncTasks = new AtomicLong(0);
+    protected volatile int lastSaveAllSkipped = 0;
+    private final AtomicLong merges = new AtomicLong(0);
+    private final AtomicLong mergesSkipped = new AtomicLong(0);
+    private final ConcurrentMap<Class<?>, PayloadPropertyCopier> propertyCopiers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PayloadIndex<K, X, ?>> indexes = new ConcurrentHashMap<>();
+    private final AtomicLong indexVersion = new AtomicLong(0); // bumped whenever an index is added or removed
 
     public PayloadCache(Injector injector, PayloadInstantiator<K, X> instantiator, String name, Class<K> key, Class<X> payload) {
         this.injector = injector;
@@ -145,8 +187,11 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
             success = false;
             errorService.capture("Failed to initialize internally for cache: " + name);
         }
-        // Make sure the entity class is mapped.
-        getDatabase().getDatastore().getMapper().getEntityModel(payloadClass);
+        // Make sure the entity class is mapped, and build its property copier up front.
+        propertyCopier(payloadClass);
+        if (getSettings().isEnsureIndexes() && requireMongoDb()) {
+            ensureIndexes();
+        }
         updater = new PayloadUpdater<>(this, database);
         if (getSettings().isEnableUpdater() && mode.equals(PayloadMode.NETWORK_NODE)) {
             if (!updater.start()) {
@@ -154,7 +199,14 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
                 errorService.capture("Failed to start Payload Updater for cache: " + name);
             }
         }
+        saveExecutor = Executors.newFixedThreadPool(Math.max(1, getSettings().getSaveParallelism()),
+                new ThreadFactoryBuilder().setNameFormat("payload-" + name + "-save-%d").setDaemon(true).build());
+        asyncExecutor = createAsyncExecutor();
         autoSaveTask.start();
+        cleanupTask.start();
+        if (getSettings().isWriteBehind()) {
+            writeBehindQueue.start();
+        }
         running = true;
         return success;
     }
@@ -168,6 +220,11 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
         Preconditions.checkState(running, "Cache " + name + " is not running!");
         boolean success = true;
 
+        // Let queued async saves finish before the final synchronous save in terminate()
+        if (asyncExecutor != null) {
+            drain(asyncExecutor, TimeUnit.SECONDS.toMillis(Math.max(1, getSettings().getExecutorDrainSeconds())), "Async executor for cache " + name);
+        }
+
         if (!terminate()) {
             success = false;
         }
@@ -182,6 +239,11 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
         }
 
         autoSaveTask.stop();
+        cleanupTask.stop();
+        writeBehindQueue.stop(); // already drained by terminate(), this only catches stragglers
+        if (saveExecutor != null) {
+            saveExecutor.shutdown();
+        }
         running = false;
         return success;
     }
@@ -224,11 +286,51 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
 
     @Override
     public Collection<X> getWhere(@Nonnull Filter... filters) {
+        return getWhere(new FindOptions(), filters);
+    }
+
+    @Override
+    public Collection<X> getWhere(@Nonnull FindOptions options, @Nonnull Filter... filters) {
+        Preconditions.checkNotNull(options, "Options cannot be null");
         Preconditions.checkNotNull(filters, "Filters cannot be null");
 
         Query<X> query = getDatabaseStore().createQuery();
         query.filter(filters);
-        return query.stream().map(x -> controller(x.getIdentifier()).get().orElse(null)).filter(Objects::nonNull).toList();
+        // Projected results are partial documents; never merge them with (or cache them over) full instances
+        boolean projected = options.getProjection() != null;
+        boolean cacheResults = !projected && shouldCacheQueried();
+        List<X> results = new ArrayList<>();
+        try (MorphiaCursor<X> cursor = query.iterator(options)) {
+            while (cursor.hasNext()) {
+                X fetched = cursor.next();
+                if (projected || fetched.getIdentifier() == null) {
+                    results.add(fetched);
+                    continue;
+                }
+                // Prefer the instance we already hold so callers see (and modify) the live copy
+                Optional<X> local = getLocalStore().get(fetched.getIdentifier());
+                if (local.isPresent()) {
+                    results.add(local.get());
+                } else {
+                    trackLoaded(fetched);
+                    if (cacheResults) {
+                        getLocalStore().save(fetched);
+                    }
+                    results.add(fetched);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Whether payloads fetched by {@link #getWhere(FindOptions, Filter...)} that aren't already cached
+     * should be added to the local store.
+     *
+     * @return true to cache query results
+     */
+    protected boolean shouldCacheQueried() {
+        return false;
     }
 
     /**
@@ -322,20 +424,90 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
      * Internal method used by Payload to forcefully update a local instance of a Payload object with a newer one,
      * allowing your references to the existing Payload to remain intact and up-to-date.
      * Note that this only effects persistent (non-transient) fields.
+     * With dirty tracking enabled, instances whose encoded documents hash the same are treated as equal and not copied.
      * @param payload The Payload to update
      * @param update The newer version of said payload to replace the values of {@param payload} with.
      */
     protected final void updatePayloadFromNewer(@Nonnull X payload, @Nonnull X update) {
         Preconditions.checkNotNull(payload);
         Preconditions.checkNotNull(update);
+        payload.interact(); // Refreshed, so it shouldn't look idle to local expiry/eviction
 
         //No point in updating something if they're equal.
-        if(payload == update)
+        if (payload == update) {
+            mergesSkipped.incrementAndGet();
             return;
+        }
+        if (getSettings().isDirtyTracking()) {
+            long hash = hash(update);
+            if (hash != 0L && hash == hash(payload)) {
+                mergesSkipped.incrementAndGet();
+                return;
+            }
+        }
 
-        database.getDatastore().getMapper().getEntityModel(payload.getClass()).getProperties().forEach(prop -> {
-            prop.setValue(payload, prop.getValue(update));
-        });
+        merges.incrementAndGet();
+        propertyCopier(payload.getClass()).copy(payload, update);
+    }
+
+    @Override
+    public long getMergeCount() {
+        return merges.get();
+    }
+
+    @Override
+    public long getMergeSkipCount() {
+        return mergesSkipped.get();
+    }
+
+    /**
+     * Creates the indexes declared on the payload class, plus one on the identifier field (compound with payloadId
+     * when server specific) if no index already starts with it, then checks that a key lookup doesn't scan the collection.
+     * The datastore only ensures indexes for classes mapped when it starts, which doesn't include cache payloads.
+     */
+    protected void ensureIndexes() {
+        try {
+            database.getDatastore().ensureIndexes(payloadClass);
+        } catch (Exception ex) {
+            errorService.capture(ex, "Error ensuring declared indexes for cache " + name);
+        }
+
+        String field = getIdentifierFieldName();
+        if (field.isEmpty() || field.equals("_id")) {
+            return;
+        }
+        MongoCollection<Document> collection = database.getDatastore().getCollection(payloadClass).withDocumentClass(Document.class);
+        try {
+            boolean indexed = false;
+            for (Document index : collection.listIndexes()) {
+                Document keys = index.get("key", Document.class);
+                if (keys != null && !keys.isEmpty() && keys.keySet().iterator().next().equals(field)) {
+                    indexed = true;
+                    break;
+                }
+            }
+            if (!indexed) {
+                collection.createIndex(getSettings().isServerSpecific() ? Indexes.ascending(field, "payloadId") : Indexes.ascending(field));
+                errorService.debug("Created index on " + field + " for cache " + name);
+            }
+        } catch (Exception ex) {
+            errorService.capture(ex, "Error creating identifier index on " + field + " for cache " + name);
+        }
+
+        try {
+            Document planner = collection.find(new Document(field, "")).explain().get("queryPlanner", Document.class);
+            Document winningPlan = planner == null ? null : planner.get("winningPlan", Document.class);
+            if (winningPlan != null && winningPlan.toJson().contains("\"COLLSCAN\"")) {
+                Bukkit.getLogger().warning("[%s] Key lookups for cache %s (%s) are scanning the whole collection; the field is not indexed!".formatted(plugin.getName(), name, field));
+            }
+        } catch (Exception ex) {
+            errorService.debug("Could not explain key lookup for cache " + name + ": " + ex.getMessage());
+        }
+    }
+
+    @Nonnull
+    protected final PayloadPropertyCopier propertyCopier(@Nonnull Class<?> type) {
+        return propertyCopiers.computeIfAbsent(type, t -> PayloadPropertyCopier.of(database.getDatastore().getMapper().getEntityModel(t)));
     }
 
     @Override
@@ -362,23 +534,229 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
         return getDatabaseStore().get(key);
     }
 
+    @Override
+    public Collection<X> getFromDatabase(@Nonnull Collection<K> keys) {
+        Preconditions.checkNotNull(keys);
+        if (keys.isEmpty() || !requireMongoDb()) {
+            return Collections.emptyList();
+        }
+        List<String> identifiers = keys.stream().map(this::keyToString).distinct().toList();
+        Query<X> query = getDatabaseStore().createQuery();
+        query.filter(Filters.in(getIdentifierFieldName(), identifiers));
+        Collection<X> found = getDatabaseStore().queryPayloads(query);
+        found.forEach(this::trackLoaded);
+        return found;
+    }
+
     @Override
     public boolean save(@Nonnull X payload) {
         Preconditions.checkNotNull(payload);
+        writeBehindQueue.discard(payload); // this save supersedes any queued one
         cache(payload);
-        boolean mongo = getDatabaseStore().save(payload);
+        X cached = cachedInstance(payload); // Dirty state lives on the instance the local store holds (payload may have been merged into it)
+        boolean tracking = getSettings().isDirtyTracking();
+        long hash = tracking ? hash(cached) : 0L;
+        if (tracking && isUnchanged(cached, hash)) {
+            return true;
+        }
+        boolean mongo = getDatabaseStore().save(cached);
         if (!mongo) {
-            errorService.capture("Failed to save payload " + keyToString(payload.getIdentifier()));
+            errorService.capture("Failed to save payload " + keyToString(cached.getIdentifier()));
+        } else if (tracking) {
+            markClean(cached, hash);
         }
         return mongo;
     }
 
+    @Nonnull
+    @Override
+    public Collection<X> saveAll(@Nonnull Collection<X> payloads) {
+        Preconditions.checkNotNull(payloads);
+        Collection<X> toSave = payloads;
+        Map<X, Long> hashes = null;
+        int skipped = 0;
+        if (getSettings().isDirtyTracking()) {
+            hashes = new IdentityHashMap<>();
+            toSave = new ArrayList<>(payloads.size());
+            for (X payload : payloads) {
+                long hash = hash(payload);
+                if (isUnchanged(payload, hash)) {
+                    skipped++;
+                } else {
+                    hashes.put(payload, hash);
+                    toSave.add(payload);
+                }
+            }
+        }
+        lastSaveAllSkipped = skipped;
+        if (toSave.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<List<X>> batches = Lists.partition(new ArrayList<>(toSave), Math.max(1, getSettings().getBulkSaveBatchSize()));
+        List<X> failed = new ArrayList<>();
+        ExecutorService executor = this.saveExecutor;
+        if (batches.size() == 1 || executor == null || executor.isShutdown()) {
+            for (List<X> batch : batches) {
+                failed.addAll(getDatabaseStore().saveAll(batch));
+            }
+        } else {
+            List<Future<Collection<X>>> futures = new ArrayList<>(batches.size());
+            for (List<X> batch : batches) {
+                futures.add(executor.submit(() -> getDatabaseStore().saveAll(batch)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    failed.addAll(futures.get(i).get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    failed.addAll(batches.get(i));
+                } catch (ExecutionException ex) {
+                    errorService.capture(ex.getCause(), "Error during bulk save for cache: " + name);
+                    failed.addAll(batches.get(i));
+                }
+            }
+        }
+        Collection<X> failures = afterBulkSave(toSave, failed);
+        if (hashes != null) {
+            Set<X> failedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            failedSet.addAll(failures);
+            hashes.forEach((payload, hash) -> {
+                if (!failedSet.contains(payload)) {
+                    markClean(payload, hash);
+                }
+            });
+        }
+        return failures;
+    }
+
+    /**
+     * Encodes a payload to its BSON document form, as it would be written to the database.
+     *
+     * @param payload the payload
+     * @return the encoded document
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public final RawBsonDocument encode(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        Codec<X> codec = (Codec<X>) database.getDatastore().getCodecRegistry().get(payload.getClass());
+        return new RawBsonDocument(payload, codec);
+    }
+
+    /**
+     * Hashes a payload's encoded document for dirty tracking.
+     *
+     * @param payload the payload
+     * @return the hash, or 0 if the payload couldn't be encoded (treated as changed)
+     */
+    public final long hash(@Nonnull X payload) {
+        try {
+            return hash(encode(payload));
+        } catch (Exception ex) {
+            errorService.capture(ex, "Error hashing payload " + keyToString(payload.getIdentifier()) + " for dirty tracking");
+            return 0L;
+        }
+    }
+
+    private long hash(@Nonnull RawBsonDocument document) {
+        ByteBuf buffer = document.getByteBuffer();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return Hashing.murmur3_128().hashBytes(bytes).asLong();
+    }
+
+    /**
+     * Records the payload's current state as persisted, for dirty tracking and partial updates.
+     * Called by the database stores after loading; does nothing unless either is enabled.
+     *
+     * @param payload the payload that was just loaded
+     */
+    public final void trackLoaded(@Nonnull X payload) {
+        boolean tracking = getSettings().isDirtyTracking();
+        boolean partial = getSettings().isPartialUpdates();
+        if (!tracking && !partial) {
+            return;
+        }
+        try {
+            RawBsonDocument document = encode(payload);
+            if (tracking) {
+                markClean(payload, hash(document));
+            }
+            if (partial) {
+                payload.setSnapshot(document);
+            }
+        } catch (Exception ex) {
+            errorService.capture(ex, "Error taking snapshot of loaded payload " + keyToString(payload.getIdentifier()));
+        }
+    }
+
+    /**
+     * @return the instance the local store holds for the payload's identifier (what {@link #cache(Payload)} merges into), or the payload itself
+     */
+    @Nonnull
+    protected final X cachedInstance(@Nonnull X payload) {
+        return getLocalStore().peek(payload.getIdentifier()).orElse(payload);
+    }
+
+    protected final void markClean(@Nonnull X payload, long hash) {
+        payload.setDirty(false);
+        payload.setLastSaveHash(hash);
+    }
+
+    protected final boolean isUnchanged(@Nonnull X payload, long hash) {
+        return !payload.isDirty() && hash != 0L && payload.getLastSaveHash() == hash;
+    }
+
+    /**
+     * Writes a payload straight to the database (without caching it) unless it is known to be unchanged since it was
+     * last saved or loaded, i.e. before dropping it from the local store.  Without dirty tracking the first call always writes.
+     *
+     * @param payload the payload
+     * @return true if the payload is persisted (already, or by this call)
+     */
+    public boolean persistIfChanged(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        long hash = hash(payload);
+        if (isUnchanged(payload, hash)) {
+            return true;
+        }
+        if (!getDatabaseStore().save(payload)) {
+            errorService.capture("Failed to save payload " + keyToString(payload.getIdentifier()) + " before evicting it");
+            return false;
+        }
+        markClean(payload, hash);
+        return true;
+    }
+
+    /**
+     * Called after {@link #saveAll(Collection)} has written every batch.
+     *
+     * @param payloads all payloads that were saved
+     * @param failed   the payloads that failed to save
+     * @return the payloads to report as failed
+     */
+    @Nonnull
+    protected Collection<X> afterBulkSave(@Nonnull Collection<X> payloads, @Nonnull Collection<X> failed) {
+        for (X payload : failed) {
+            errorService.capture("Failed to save payload " + keyToString(payload.getIdentifier()));
+        }
+        return failed;
+    }
+
     @Override
     public boolean saveNoCache(@NotNull X payload) {
         Preconditions.checkNotNull(payload);
+        writeBehindQueue.discard(payload);
+        boolean tracking = getSettings().isDirtyTracking();
+        long hash = tracking ? hash(payload) : 0L;
+        if (tracking && isUnchanged(payload, hash)) {
+            return true;
+        }
         boolean mongo = getDatabaseStore().save(payload);
         if (!mongo) {
             errorService.capture("Failed to save payload " + keyToString(payload.getIdentifier()));
+        } else if (tracking) {
+            markClean(payload, hash);
         }
         return mongo;
     }
@@ -386,20 +764,142 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
     @Override
     public void saveAsync(@Nonnull X payload) {
         Preconditions.checkNotNull(payload);
+        if (writeBehindQueue.isRunning()) {
+            cache(payload);
+            writeBehindQueue.enqueue(cachedInstance(payload));
+            return;
+        }
         runAsyncImmediately(() -> save(payload));
     }
 
     @Override
     public void cache(@Nonnull X payload) {
         Preconditions.checkNotNull(payload);
-        Optional<X> o = getLocalStore().get(payload.getIdentifier());
+        Optional<X> o = getLocalStore().peek(payload.getIdentifier());
         if (o.isPresent()) {
             updatePayloadFromNewer(o.get(), payload);
+            getLocalStore().reindex(o.get()); // Even unmerged, the cached instance may have been changed in place
         } else {
             getLocalStore().save(payload);
         }
     }
 
+    @Nonnull
+    @Override
+    public <V> PayloadIndex<K, X, V> addIndex(@Nonnull String name, @Nonnull PayloadIndexType type, @Nonnull Function<X, V> extractor) {
+        Preconditions.checkNotNull(extractor);
+        return addMultiIndex(name, type, payload -> {
+            V value = extractor.apply(payload);
+            return value == null ? Collections.emptyList() : Collections.singletonList(value);
+        });
+    }
+
+    @Nonnull
+    @Override
+    public <V> PayloadIndex<K, X, V> addMultiIndex(@Nonnull String name, @Nonnull PayloadIndexType type, @Nonnull Function<X, ? extends Collection<V>> extractor) {
+        PayloadIndex<K, X, V> index = new PayloadIndex<>(name, type, extractor);
+        Preconditions.checkState(indexes.putIfAbsent(name, index) == null, "Index " + name + " already exists on cache " + getName());
+        indexVersion.incrementAndGet();
+        // Registered first, so saves from here on include it; each backfill entry is applied under the store's
+        // per-key update and only if that instance is still the cached one, so a concurrent save always wins
+        List<PayloadIndex<K, X, ?>> target = Collections.singletonList(index);
+        for (X payload : getLocalStore().getAll()) {
+            getLocalStore().reindex(payload, indexValues(payload, target));
+        }
+        return index;
+    }
+
+    @Override
+    public void removeIndex(@Nonnull String name) {
+        Preconditions.checkNotNull(name);
+        if (indexes.remove(name) != null) {
+            indexVersion.incrementAndGet();
+        }
+    }
+
+    @Nonnull
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> Collection<X> getByIndex(@Nonnull String name, @Nonnull V value) {
+        PayloadIndex<K, X, V> index = (PayloadIndex<K, X, V>) indexes.get(name);
+        Preconditions.checkArgument(index != null, "No index named " + name + " on cache " + getName());
+        return resolveIndexed(index.get(value));
+    }
+
+    @Nonnull
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> Collection<X> getByIndexRange(@Nonnull String name, @Nonnull V from, @Nonnull V to) {
+        PayloadIndex<K, X, V> index = (PayloadIndex<K, X, V>) indexes.get(name);
+        Preconditions.checkArgument(index != null, "No index named " + name + " on cache " + getName());
+        return resolveIndexed(index.range(from, to));
+    }
+
+    @Override
+    public void reindex(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        getLocalStore().reindex(payload);
+    }
+
+    /**
+     * Runs every index extractor against a payload.  Called by the local store before its per-key update, which then
+     * applies the result, so extractors never run while the store's map is locked.
+     *
+     * @param payload the payload being stored or re-indexed
+     * @return the extracted values
+     */
+    @Nonnull
+    public PayloadIndexValues<K, X> indexValues(@Nonnull X payload) {
+        return indexValues(payload, indexes.values());
+    }
+
+    /**
+     * @param values values from {@link #indexValues(Payload)}
+     * @return true if an index was added or removed since they were extracted, so the payload should be re-indexed
+     */
+    public boolean isIndexStale(@Nonnull PayloadIndexValues<K, X> values) {
+        return values.getVersion() != indexVersion.get();
+    }
+
+    @Nonnull
+    private PayloadIndexValues<K, X> indexValues(@Nonnull X payload, @Nonnull Collection<PayloadIndex<K, X, ?>> targets) {
+        PayloadIndexValues<K, X> values = new PayloadIndexValues<>(indexVersion.get());
+        for (PayloadIndex<K, X, ?> index : targets) {
+            try {
+                extract(values, index, payload);
+            } catch (Exception ex) {
+                errorService.capture(ex, "Error updating index " + index.getName() + " for payload " + keyToString(payload.getIdentifier()));
+            }
+        }
+        return values;
+    }
+
+    private <V> void extract(@Nonnull PayloadIndexValues<K, X> values, @Nonnull PayloadIndex<K, X, V> index, @Nonnull X payload) {
+        values.put(index, index.extract(payload));
+    }
+
+    /**
+     * Called by the local store (inside its per-key update) whenever a payload is removed.
+     */
+    public void removeFromIndexes(@Nonnull K key) {
+        for (PayloadIndex<K, X, ?> index : indexes.values()) {
+            index.remove(key);
+        }
+    }
+
+    public void clearIndexes() {
+        indexes.values().forEach(PayloadIndex::clear);
+    }
+
+    @Nonnull
+    private Collection<X> resolveIndexed(@Nonnull Set<K> keys) {
+        List<X> payloads = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            getLocalStore().peek(key).ifPresent(payloads::add);
+        }
+        return payloads;
+    }
+
     @Override
     public void uncache(@Nonnull K key) {
         Preconditions.checkNotNull(key);
@@ -458,7 +958,132 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
 
     @Override
     public void cacheAll() {
-        getDatabaseStore().getAll().forEach(this::cache);
+        cacheAll(getSettings().getWarmupBatchSize(), getSettings().getWarmupParallelism());
+    }
+
+    /**
+     * Streams the database collection into the local store.  Raw documents are read from the cursor in batches
+     * and decoded/cached by a temporary pool of worker threads; at most two batches per worker are held in memory.
+     * Payloads already held locally (see {@link #getLocalForMerge()}) are left untouched.
+     *
+     * @param batchSize   documents per cursor batch (and per worker task)
+     * @param parallelism number of decode worker threads
+     * @return the number of payloads cached
+     */
+    public int cacheAll(int batchSize, int parallelism) {
+        if (!requireMongoDb()) {
+            return 0;
+        }
+        final int size = Math.max(1, batchSize);
+        final int threads = Math.max(1, parallelism);
+        final long start = System.currentTimeMillis();
+
+        Set<K> local = new HashSet<>();
+        getLocalForMerge().forEach(payload -> local.add(payload.getIdentifier()));
+        Codec<X> codec = database.getDatastore().getCodecRegistry().get(payloadClass);
+        Bson filter = getDatabaseStore().createQuery().toDocument();
+        MongoCollection<RawBsonDocument> collection = database.getDatastore().getCollection(payloadClass).withDocumentClass(RawBsonDocument.class);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("payload-" + name + "-warmup-%d").setDaemon(true).build());
+        Semaphore inFlight = new Semaphore(threads * 2);
+        AtomicInteger cached = new AtomicInteger(0);
+        AtomicInteger failed = new AtomicInteger(0);
+        int read = 0;
+        int batches = 0;
+        try (MongoCursor<RawBsonDocument> cursor = collection.find(filter).batchSize(size).iterator()) {
+            List<RawBsonDocument> batch = new ArrayList<>(size);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                read++;
+                if (batch.size() >= size) {
+                    inFlight.acquire();
+                    submitWarmupBatch(workers, inFlight, codec, batch, local, cached, failed);
+                    batch = new ArrayList<>(size);
+                    if (++batches % 10 == 0) {
+                        errorService.debug("Cache warmup: read " + read + " documents, cached " + cached.get() + " so far (" + (System.currentTimeMillis() - start) + "ms)");
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                inFlight.acquire();
+                submitWarmupBatch(workers, inFlight, codec, batch, local, cached, failed);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            errorService.capture(ex, "Interrupted during cache warmup for " + name);
+        } catch (Exception ex) {
+            errorService.capture(ex, "Error reading documents during cache warmup for " + name);
+        } finally {
+            workers.shutdown();
+            try {
+                if (!workers.awaitTermination(5, TimeUnit.MINUTES)) {
+                    errorService.capture("Cache warmup workers for " + name + " did not finish in time");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Bukkit.getLogger().info("[%s] Cached %d %s payloads from %d documents in %dms (%d failed)"
+                .formatted(plugin.getName(), cached.get(), name, read, System.currentTimeMillis() - start, failed.get()));
+        return cached.get();
+    }
+
+    private void submitWarmupBatch(ExecutorService workers, Semaphore inFlight, Codec<X> codec, List<RawBsonDocument> batch,
+                                   Set<K> local, AtomicInteger cached, AtomicInteger failed) {
+        workers.execute(() -> {
+            try {
+                for (RawBsonDocument document : batch) {
+                    try (BsonBinaryReader reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+                        X payload = codec.decode(reader, DecoderContext.builder().build());
+                        if (payload == null || local.contains(payload.getIdentifier())) {
+                            continue;
+                        }
+                        trackLoaded(payload);
+                        cache(payload);
+                        cached.incrementAndGet();
+                    } catch (Exception ex) {
+                        failed.incrementAndGet();
+                        errorService.capture(ex, "Error decoding document during cache warmup for " + name);
+                    }
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    @Nonnull
+    @Override
+    public Stream<X> streamAll() {
+        return streamAll(getSettings().getCursorBatchSize());
+    }
+
+    @Nonnull
+    @Override
+    public Stream<X> streamAll(int batchSize) {
+        Map<K, X> local = new LinkedHashMap<>();
+        for (X payload : getLocalForMerge()) {
+            local.put(payload.getIdentifier(), payload);
+        }
+        if (!requireMongoDb()) {
+            return local.values().stream();
+        }
+        MorphiaCursor<X> cursor = getDatabaseStore().createQuery().iterator(new FindOptions().batchSize(Math.max(1, batchSize)));
+        Stream<X> fromDatabase = StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .filter(payload -> !local.containsKey(payload.getIdentifier()))
+                .peek(this::trackLoaded);
+        return Stream.concat(local.values().stream(), fromDatabase).onClose(cursor::close);
+    }
+
+    /**
+     * The local payloads that take precedence over their database copies in {@link #streamAll(int)}.
+     *
+     * @return local payloads to merge
+     */
+    @Nonnull
+    protected Collection<X> getLocalForMerge() {
+        return getLocalStore().getAll();
     }
 
     /**
@@ -518,18 +1143,76 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
      */
     @Override
     public void runAsyncImmediately(@NotNull Runnable runnable) {
-        if(!api.getPlugin().isEnabled()) {
+        if(!api.getPlugin().isEnabled() && !draining) {
             Bukkit.getLogger().warning("[%s] - Tried to run async runnable but plugin is disabled! (Most likely harmless)".formatted(plugin.getName()));
             return;
         }
 
         Preconditions.checkNotNull(runnable);
-        SHARED_EXECUTOR.execute(() -> {
-            if(!api.getPlugin().isEnabled())
-                return;
+        pendingAsyncTasks.incrementAndGet();
+        try {
+            asyncExecutor().execute(() -> {
+                try {
+                    // Tasks still queued while draining on disable must run (they're usually saves)
+                    if (!api.getPlugin().isEnabled() && !draining)
+                        return;
+
+                    runnable.run();
+                } finally {
+                    pendingAsyncTasks.decrementAndGet();
+                    completedAsyncTasks.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            pendingAsyncTasks.decrementAndGet();
+            errorService.capture(ex, "Async task rejected for cache " + name + " (executor is shut down)");
+        }
+    }
 
-            runnable.run();
-        });
+    @Override
+    public int getPendingAsyncTasks() {
+        return pendingAsyncTasks.get();
+    }
+
+    @Override
+    public long getCompletedAsyncTasks() {
+        return completedAsyncTasks.get();
+    }
+
+    @Nonnull
+    private ExecutorService asyncExecutor() {
+        ExecutorService executor = this.asyncExecutor;
+        if (executor != null && !executor.isShutdown()) {
+            return executor;
+        }
+        return SHARED_EXECUTOR;
+    }
+
+    private ExecutorService createAsyncExecutor() {
+        ExecutorStrategy strategy = getSettings().getExecutorStrategy();
+        if (strategy == ExecutorStrategy.VIRTUAL) {
+            try {
+                // Reflective so we can still compile against and run on Java 17
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                errorService.capture("Virtual threads are not available on this JVM (Java 21+ required); using a bounded executor for cache " + name);
+                strategy = ExecutorStrategy.BOUNDED;
+            }
+        }
+        if (strategy == ExecutorStrategy.BOUNDED) {
+            int threads = Math.max(1, getSettings().getExecutorThreads());
+            return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(Math.max(1, getSettings().getExecutorQueueCapacity())),
+                    new ThreadFactoryBuilder().setNameFormat("payload-" + name + "-async-%d").setDaemon(true).build(),
+                    (task, executor) -> {
+                        // Overflow goes to the shared pool; never run inline, callers include the main thread and Redis pub/sub (event loop) threads
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Executor for cache " + name + " is shut down");
+                        }
+                        SHARED_EXECUTOR.execute(task);
+                    });
+        }
+        return null;
     }
 
     /**
@@ -602,21 +1285,33 @@ public abstract class PayloadCache<K, X extends Payload<K>> implements Comparabl
     }
 
     /**
-     * Shuts down, and waits for the termination of, the shared executor.
+     * Shuts down, and waits for the termination of, the shared executor and any per-cache async executors.
+     * Tasks already queued are run to completion (even though the plugin is disabling) so pending saves aren't lost.
      */
     public static void shutdownSharedExecutor() {
         //Wait for all async tasks to finish as we don't want save collisions.
-        if(!SHARED_EXECUTOR.isShutdown())
-            SHARED_EXECUTOR.shutdown();
+        draining = true;
+        for (PayloadCache cache : ALL_CACHES) {
+            if (cache.asyncExecutor != null) {
+                drain(cache.asyncExecutor, TimeUnit.SECONDS.toMillis(Math.max(1, cache.getSettings().getExecutorDrainSeconds())), "Async executor for cache " + cache.getName());
+            }
+        }
+        drain(SHARED_EXECUTOR, SHARED_DRAIN_MILLIS, "Shared executor");
+    }
+
+    private static void drain(@Nonnull ExecutorService executor, long timeoutMillis, @Nonnull String label) {
+        if(!executor.isShutdown())
+            executor.shutdown();
 
         try{
-            boolean result = SHARED_EXECUTOR.awaitTermination(1000L, TimeUnit.MILLISECONDS);
-            if(!result) {
-                Bukkit.getLogger().warning("Shared executor did not exit in a timely manner!");
+            if(!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                List<Runnable> dropped = executor.shutdownNow();
+                Bukkit.getLogger().warning(label + " did not drain within " + timeoutMillis + "ms; dropped " + dropped.size() + " queued tasks!");
             }
         }catch(InterruptedException exc) {
-            Bukkit.getLogger().warning("Failed to await for termination on the shared executor!");
-            exc.printStackTrace();
+            Thread.currentThread().interrupt();
+            List<Runnable> dropped = executor.shutdownNow();
+            Bukkit.getLogger().warning("Interrupted while draining " + label + "; dropped " + dropped.size() + " queued tasks!");
         }
     }
 }
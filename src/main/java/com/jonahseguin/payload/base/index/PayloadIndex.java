@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.base.index;
+
+import com.google.common.base.Preconditions;
+import com.jonahseguin.payload.base.type.Payload;
+import lombok.Getter;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * A named in-memory secondary index over the payloads held in a cache's local store.
+ * Maps each value produced by the extractor to the identifiers of the payloads that produced it.
+ * Kept up to date by the local store; query it through {@code Cache#getByIndex} / {@code Cache#getByIndexRange}.
+ *
+ * @param <K> the payload identifier type
+ * @param <X> the payload type
+ * @param <V> the indexed value type
+ */
+@Getter
+public class PayloadIndex<K, X extends Payload<K>, V> {
+
+    private final String name;
+    private final PayloadIndexType type;
+    private final Function<X, ? extends Collection<V>> extractor;
+    private final ConcurrentMap<V, Set<K>> entries;
+    private final ConcurrentMap<K, Set<V>> indexed = new ConcurrentHashMap<>();
+
+    public PayloadIndex(@Nonnull String name, @Nonnull PayloadIndexType type, @Nonnull Function<X, ? extends Collection<V>> extractor) {
+        Preconditions.checkNotNull(name);
+        Preconditions.checkNotNull(type);
+        Preconditions.checkNotNull(extractor);
+        this.name = name;
+        this.type = type;
+        this.extractor = extractor;
+        this.entries = type == PayloadIndexType.SORTED ? new ConcurrentSkipListMap<>() : new ConcurrentHashMap<>();
+    }
+
+    /**
+     * (Re)index a payload under the values its extractor currently returns.
+     *
+     * @param payload the payload
+     */
+    public void update(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        apply(payload.getIdentifier(), extract(payload));
+    }
+
+    /**
+     * Runs the extractor against a payload without touching the index.
+     *
+     * @param payload the payload
+     * @return the non-null values the payload should be indexed under
+     */
+    @Nonnull
+    public Set<V> extract(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        Set<V> values = new HashSet<>();
+        Collection<V> extracted = extractor.apply(payload);
+        if (extracted != null) {
+            for (V value : extracted) {
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Index a key under previously extracted values, replacing whatever it was indexed under before.
+     *
+     * @param key  the payload identifier
+     * @param next the values from {@link #extract(Payload)}
+     */
+    void apply(@Nonnull K key, @Nonnull Set<V> next) {
+        Set<V> previous = next.isEmpty() ? indexed.remove(key) : indexed.put(key, next);
+        if (previous != null) {
+            for (V value : previous) {
+                if (!next.contains(value)) {
+                    unlink(value, key);
+                }
+            }
+        }
+        for (V value : next) {
+            if (previous == null || !previous.contains(value)) {
+                link(value, key);
+            }
+        }
+    }
+
+    public void remove(@Nonnull K key) {
+        Preconditions.checkNotNull(key);
+        Set<V> previous = indexed.remove(key);
+        if (previous != null) {
+            previous.forEach(value -> unlink(value, key));
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        indexed.clear();
+    }
+
+    /**
+     * @param value the value
+     * @return identifiers of the payloads indexed under the value
+     */
+    @Nonnull
+    public Set<K> get(@Nonnull V value) {
+        Preconditions.checkNotNull(value);
+        Set<K> keys = entries.get(value);
+        return keys == null ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * Range lookup, only for {@link PayloadIndexType#SORTED} indexes.
+     *
+     * @param from lower bound (inclusive)
+     * @param to   upper bound (exclusive)
+     * @return identifiers of the payloads indexed under values in [from, to), in value order
+     */
+    @Nonnull
+    public Set<K> range(@Nonnull V from, @Nonnull V to) {
+        Preconditions.checkNotNull(from);
+        Preconditions.checkNotNull(to);
+        Preconditions.checkState(type == PayloadIndexType.SORTED, "Index " + name + " is not sorted");
+        Set<K> keys = new LinkedHashSet<>();
+        ((ConcurrentNavigableMap<V, Set<K>>) entries).subMap(from, true, to, false).values().forEach(keys::addAll);
+        return keys;
+    }
+
+    public int size() {
+        return indexed.size();
+    }
+
+    private void link(@Nonnull V value, @Nonnull K key) {
+        entries.compute(value, (v, keys) -> {
+            if (keys == null) {
+                keys = ConcurrentHashMap.newKeySet();
+            }
+            keys.add(key);
+            return keys;
+        });
+    }
+
+    private void unlink(@Nonnull V value, @Nonnull K key) {
+        entries.computeIfPresent(value, (v, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.base.index;
+
+/**
+ * How a {@link PayloadIndex} stores its values.
+ *      * HASH: O(1) exact lookups
+ *      * SORTED: O(log n) exact and range lookups; values must be {@link Comparable}
+ */
+public enum PayloadIndexType {
+
+    HASH,
+    SORTED
+
+}
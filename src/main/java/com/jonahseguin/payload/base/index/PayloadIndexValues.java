@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.base.index;
+
+import com.google.common.base.Preconditions;
+import com.jonahseguin.payload.base.type.Payload;
+import lombok.Getter;
+
+import javax.annotation.Nonnull;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index values extracted from one payload, ready to be applied.
+ * Extractors are user code, so the local stores extract before entering their per-key update and only apply the
+ * result inside it; an extractor that reads the cache can then never re-enter (or deadlock on) the store's map.
+ *
+ * @param <K> the payload identifier type
+ * @param <X> the payload type
+ */
+public final class PayloadIndexValues<K, X extends Payload<K>> {
+
+    @Getter
+    private final long version; // the cache's index version when extraction started
+    private final Map<PayloadIndex<K, X, ?>, Set<?>> values = new IdentityHashMap<>();
+
+    public PayloadIndexValues(long version) {
+        this.version = version;
+    }
+
+    public <V> void put(@Nonnull PayloadIndex<K, X, V> index, @Nonnull Set<V> extracted) {
+        Preconditions.checkNotNull(index);
+        Preconditions.checkNotNull(extracted);
+        values.put(index, extracted);
+    }
+
+    /**
+     * Index the key under the extracted values.  Meant to be called inside the local store's update for the key.
+     *
+     * @param key the payload identifier
+     */
+    @SuppressWarnings("unchecked")
+    public void apply(@Nonnull K key) {
+        Preconditions.checkNotNull(key);
+        values.forEach((index, extracted) -> ((PayloadIndex<K, X, Object>) index).apply(key, (Set<Object>) extracted));
+    }
+
+}
@@ -17,5 +17,25 @@ public abstract class CacheSettings {
     private int autoSaveIntervalSeconds = 600;
     private boolean serverSpecific = false; // should we associate each object with a server, and only cache objects that match this server
     private boolean enableUpdater = true;
+    private long updaterBatchWindowMillis = 50; // updates pushed within this window are published together as one packet (0 publishes each immediately)
+    private int updaterMaxBatchSize = 500; // max identifiers per update packet
+    private boolean updaterMultiIdentifierPackets = false; // send batched updates as one multi-identifier packet; only enable once every node is upgraded (older nodes ignore them)
+    private int bulkSaveBatchSize = 100; // max payloads per MongoDB bulk write in saveAll
+    private int saveParallelism = 2; // how many bulk write batches may run at once
+    private boolean dirtyTracking = false; // skip saving payloads whose encoded document hasn't changed since the last save/load
+    private boolean partialUpdates = false; // save only changed top-level fields ($set/$unset) instead of replacing the document
+    private int cursorBatchSize = 1000; // MongoDB cursor batch size when streaming the whole collection (streamAll/getAll)
+    private int warmupBatchSize = 500; // documents per batch when cacheAll streams the collection into the local store
+    private int warmupParallelism = 4; // worker threads decoding documents during cacheAll
+    private ExecutorStrategy executorStrategy = ExecutorStrategy.SHARED; // where runAsyncImmediately tasks run (see ExecutorStrategy)
+    private int executorThreads = 8; // BOUNDED strategy: worker threads
+    private int executorQueueCapacity = 1000; // BOUNDED strategy: max queued tasks before overflow is handed to the shared pool
+    private int executorDrainSeconds = 30; // how long shutdown waits for queued async tasks (pending saves) to finish
+    private boolean writeBehind = false; // saveAsync queues payloads and writes them in bulk, collapsing repeated saves of the same key
+    private long writeBehindWindowMillis = 1000; // how often the write-behind queue is flushed
+    private int writeBehindFlushSize = 200; // flush early once this many payloads are queued
+    private int writeBehindMaxPending = 5000; // past this, async callers flush synchronously (backpressure)
+    private boolean ensureIndexes = true; // on start, create indexes for the payload class (and its identifier field) and warn about key lookups that scan
+    private int cleanupIntervalSeconds = 300; // how often the local store is swept for expired payloads (<= 0 to disable)
 
 }
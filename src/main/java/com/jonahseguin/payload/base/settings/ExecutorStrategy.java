@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.base.settings;
+
+/**
+ * How a cache runs the blocking work submitted through {@code runAsyncImmediately} (handshakes, update fetches, saves, publishes).
+ *      * SHARED: the small pool shared by every cache
+ *      * BOUNDED: a per-cache fixed pool with a bounded queue; when the queue is full, overflow runs on the shared pool
+ *      * VIRTUAL: a per-cache virtual thread per task (Java 21+, falls back to BOUNDED on older JVMs)
+ */
+public enum ExecutorStrategy {
+
+    SHARED,
+    BOUNDED,
+    VIRTUAL
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.base.store;
+
+import com.google.common.base.Preconditions;
+import com.jonahseguin.payload.base.error.ErrorService;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Shared bulk write logic for the MongoDB stores.
+ */
+public final class MongoBulkWrite {
+
+    private MongoBulkWrite() {
+    }
+
+    /**
+     * Executes the given writes as one unordered bulk write, mapping failures back to their payloads.
+     * {@code models.get(i)} must be the write for {@code payloads.get(i)}.
+     *
+     * @param collection   the collection to write to
+     * @param models       the writes
+     * @param payloads     the payloads being written, in the same order as the models
+     * @param errorService where failures are reported
+     * @return the payloads whose write failed (empty if all succeeded)
+     */
+    @Nonnull
+    public static <T, X> List<X> execute(@Nonnull MongoCollection<T> collection, @Nonnull List<WriteModel<T>> models, @Nonnull List<X> payloads, @Nonnull ErrorService errorService) {
+        return execute(collection, models, payloads, errorService, null);
+    }
+
+    /**
+     * Same as {@link #execute(MongoCollection, List, List, ErrorService)}, also handing the (acknowledged) result of the
+     * bulk write to {@code onResult}, i.e. to check matched counts.  Not called if the write failed outright.
+     */
+    @Nonnull
+    public static <T, X> List<X> execute(@Nonnull MongoCollection<T> collection, @Nonnull List<WriteModel<T>> models, @Nonnull List<X> payloads,
+                                         @Nonnull ErrorService errorService, @Nullable Consumer<BulkWriteResult> onResult) {
+        Preconditions.checkNotNull(collection);
+        Preconditions.checkNotNull(models);
+        Preconditions.checkNotNull(payloads);
+        Preconditions.checkArgument(models.size() == payloads.size(), "Each payload must have exactly one write model");
+        List<X> failed = new ArrayList<>();
+        if (models.isEmpty()) {
+            return failed;
+        }
+        try {
+            BulkWriteResult result = collection.bulkWrite(models, new BulkWriteOptions().ordered(false));
+            if (onResult != null && result.wasAcknowledged()) {
+                onResult.accept(result);
+            }
+        } catch (MongoBulkWriteException ex) {
+            // Unordered: everything except the reported indexes was written
+            for (BulkWriteError error : ex.getWriteErrors()) {
+                failed.add(payloads.get(error.getIndex()));
+            }
+            if (onResult != null && ex.getWriteResult().wasAcknowledged()) {
+                onResult.accept(ex.getWriteResult());
+            }
+            if (ex.getWriteConcernError() != null) {
+                errorService.capture(ex, "Write concern error during bulk write to " + collection.getNamespace());
+            } else {
+                errorService.capture(ex, failed.size() + " of " + payloads.size() + " writes failed during bulk write to " + collection.getNamespace());
+            }
+        } catch (Exception ex) {
+            errorService.capture(ex, "Error during bulk write of " + payloads.size() + " documents to " + collection.getNamespace());
+            failed.addAll(payloads);
+        }
+        return failed;
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.base.store;
+
+import com.google.common.base.Preconditions;
+import org.bson.types.ObjectId;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * ObjectId to key secondary index for a local store.
+ * Updates for a key are expected to happen inside the owning map's {@code compute} for that key, so the index
+ * changes atomically with the primary entry.
+ */
+public final class ObjectIdIndex<K> {
+
+    private final ConcurrentMap<ObjectId, K> keys = new ConcurrentHashMap<>();
+    private final ConcurrentMap<K, ObjectId> ids = new ConcurrentHashMap<>();
+
+    /**
+     * Index (or re-index) a key under its payload's current ObjectId.
+     */
+    public void put(@Nonnull K key, @Nullable ObjectId id) {
+        Preconditions.checkNotNull(key);
+        remove(key);
+        if (id != null) {
+            keys.put(id, key);
+            ids.put(key, id);
+        }
+    }
+
+    public void remove(@Nonnull K key) {
+        Preconditions.checkNotNull(key);
+        ObjectId id = ids.remove(key);
+        if (id != null) {
+            keys.remove(id, key);
+        }
+    }
+
+    @Nullable
+    public K get(@Nullable ObjectId id) {
+        return id == null ? null : keys.get(id);
+    }
+
+    public void clear() {
+        keys.clear();
+        ids.clear();
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.base.store;
+
+import com.google.common.base.Preconditions;
+import com.jonahseguin.payload.base.PayloadCache;
+import com.jonahseguin.payload.base.type.Payload;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Field-level saves for caches with partial updates enabled.
+ * Each payload keeps a snapshot of its document as of its last load/save; saves then only
+ * {@code $set}/{@code $unset} the top-level fields that differ from that snapshot.
+ */
+public final class PartialUpdates {
+
+    private static final String ID_FIELD = "_id";
+
+    private PartialUpdates() {
+    }
+
+    /**
+     * Builds an update document containing only the top-level changes between two versions of a document.
+     *
+     * @param before the previously persisted document
+     * @param after  the current document
+     * @return the update ({@code $set} and/or {@code $unset}), or an empty document if nothing changed
+     */
+    @Nonnull
+    public static BsonDocument diff(@Nonnull BsonDocument before, @Nonnull BsonDocument after) {
+        Preconditions.checkNotNull(before);
+        Preconditions.checkNotNull(after);
+        BsonDocument set = new BsonDocument();
+        BsonDocument unset = new BsonDocument();
+        for (Map.Entry<String, BsonValue> entry : after.entrySet()) {
+            if (!ID_FIELD.equals(entry.getKey()) && !entry.getValue().equals(before.get(entry.getKey()))) {
+                set.append(entry.getKey(), entry.getValue());
+            }
+        }
+        for (String key : before.keySet()) {
+            if (!ID_FIELD.equals(key) && !after.containsKey(key)) {
+                unset.append(key, new BsonString(""));
+            }
+        }
+        BsonDocument update = new BsonDocument();
+        if (!set.isEmpty()) {
+            update.append("$set", set);
+        }
+        if (!unset.isEmpty()) {
+            update.append("$unset", unset);
+        }
+        return update;
+    }
+
+    /**
+     * Saves only the changed fields of a payload.
+     *
+     * @return true if saved (or unchanged); false if the payload has no snapshot or its document no longer exists,
+     * in which case the caller should fall back to a full save
+     */
+    public static <K, X extends Payload<K>> boolean save(@Nonnull PayloadCache<K, X> cache, @Nonnull X payload) {
+        BsonDocument snapshot = payload.getSnapshot();
+        if (snapshot == null) {
+            return false;
+        }
+        RawBsonDocument current = cache.encode(payload);
+        BsonDocument update = diff(snapshot, current);
+        if (!update.isEmpty()) {
+            UpdateResult result = collection(cache).updateOne(filter(payload), update);
+            if (result.getMatchedCount() == 0) {
+                return false;
+            }
+        }
+        payload.setSnapshot(current);
+        return true;
+    }
+
+    /**
+     * Bulk variant of {@link #save(PayloadCache, Payload)}: payloads with a snapshot get an update of their
+     * changed fields (or nothing at all if unchanged), the rest are replaced in full.  Updates that match no
+     * document (deleted, or never inserted) are re-issued as full upserting replaces.
+     *
+     * @return the payloads that failed to save
+     */
+    @Nonnull
+    public static <K, X extends Payload<K>> List<X> saveAll(@Nonnull PayloadCache<K, X> cache, @Nonnull List<X> payloads) {
+        List<WriteModel<BsonDocument>> models = new ArrayList<>(payloads.size());
+        List<X> written = new ArrayList<>(payloads.size());
+        Map<X, RawBsonDocument> documents = new IdentityHashMap<>(payloads.size());
+        List<X> updated = new ArrayList<>();
+        for (X payload : payloads) {
+            RawBsonDocument current = cache.encode(payload);
+            BsonDocument snapshot = payload.getSnapshot();
+            if (snapshot != null) {
+                BsonDocument update = diff(snapshot, current);
+                if (update.isEmpty()) {
+                    continue; // Nothing to write
+                }
+                models.add(new UpdateOneModel<>(filter(payload), update));
+                updated.add(payload);
+            } else {
+                models.add(new ReplaceOneModel<>(filter(payload), current, new ReplaceOptions().upsert(true)));
+            }
+            written.add(payload);
+            documents.put(payload, current);
+        }
+        MongoCollection<BsonDocument> collection = collection(cache);
+        AtomicReference<BulkWriteResult> result = new AtomicReference<>();
+        List<X> failed = new ArrayList<>(MongoBulkWrite.execute(collection, models, written, cache.getErrorService(), result::set));
+        Set<X> failedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        failedSet.addAll(failed);
+        if (result.get() == null) {
+            // Outcome unknown (unacknowledged write): don't advance any snapshot, the next save sends everything again
+            failedSet.addAll(written);
+        } else {
+            // Every write that didn't fail and wasn't an upsert should have matched; if not, some updates hit nothing
+            int expectedMatches = written.size() - failed.size() - result.get().getUpserts().size();
+            if (result.get().getMatchedCount() < expectedMatches) {
+                List<X> missing = Collections.emptyList();
+                try {
+                    missing = unmatched(cache, collection, updated, failedSet);
+                } catch (Exception ex) {
+                    // Can't tell which updates were dropped, so treat them all as failed
+                    cache.getErrorService().capture(ex, "Error checking for unmatched partial updates in " + collection.getNamespace());
+                    for (X payload : updated) {
+                        if (failedSet.add(payload)) {
+                            failed.add(payload);
+                        }
+                    }
+                }
+                List<WriteModel<BsonDocument>> replaces = new ArrayList<>(missing.size());
+                for (X payload : missing) {
+                    replaces.add(new ReplaceOneModel<>(filter(payload), documents.get(payload), new ReplaceOptions().upsert(true)));
+                }
+                List<X> replaceFailed = MongoBulkWrite.execute(collection, replaces, missing, cache.getErrorService());
+                failed.addAll(replaceFailed);
+                failedSet.addAll(replaceFailed);
+            }
+        }
+        for (X payload : written) {
+            if (!failedSet.contains(payload)) {
+                payload.setSnapshot(documents.get(payload));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @return the updated payloads (that didn't fail) whose document does not exist
+     */
+    private static <K, X extends Payload<K>> List<X> unmatched(@Nonnull PayloadCache<K, X> cache, @Nonnull MongoCollection<BsonDocument> collection,
+                                                             @Nonnull List<X> updated, @Nonnull Set<X> failed) {
+        List<X> candidates = new ArrayList<>();
+        BsonArray ids = new BsonArray();
+        for (X payload : updated) {
+            if (!failed.contains(payload)) {
+                candidates.add(payload);
+                ids.add(new BsonObjectId(payload.getObjectId()));
+            }
+        }
+        Set<BsonValue> existing = new HashSet<>();
+        collection.find(new BsonDocument(ID_FIELD, new BsonDocument("$in", ids)))
+                .projection(new BsonDocument(ID_FIELD, new BsonInt32(1)))
+                .forEach(document -> existing.add(document.get(ID_FIELD)));
+        List<X> missing = new ArrayList<>();
+        for (X payload : candidates) {
+            if (!existing.contains(new BsonObjectId(payload.getObjectId()))) {
+                missing.add(payload);
+            }
+        }
+        cache.getErrorService().debug(missing.size() + " partial updates matched no document; re-saving them in full");
+        return missing;
+    }
+
+    private static BsonDocument filter(@Nonnull Payload<?> payload) {
+        return new BsonDocument(ID_FIELD, new BsonObjectId(payload.getObjectId()));
+    }
+
+    private static MongoCollection<BsonDocument> collection(@Nonnull PayloadCache<?, ?> cache) {
+        return cache.getDatabase().getDatastore().getCollection(cache.getPayloadClass()).withDocumentClass(BsonDocument.class);
+    }
+
+}
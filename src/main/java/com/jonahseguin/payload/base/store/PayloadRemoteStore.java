@@ -16,6 +16,15 @@ public interface PayloadRemoteStore<K, X extends Payload> extends PayloadStore<K
     @Nonnull
     Collection<X> queryPayloads(Query<X> filter);
 
+    /**
+     * Saves a batch of payloads in a single bulk write.
+     *
+     * @param payloads the payloads to save
+     * @return the payloads that failed to save
+     */
+    @Nonnull
+    Collection<X> saveAll(@Nonnull Collection<X> payloads);
+
     /**
      * Creates a query for data on this store.
      *
@@ -6,6 +6,7 @@
 package com.jonahseguin.payload.base.store;
 
 import com.jonahseguin.payload.base.Service;
+import com.jonahseguin.payload.base.index.PayloadIndexValues;
 import com.jonahseguin.payload.base.type.Payload;
 import dev.morphia.query.Query;
 import org.bson.Document;
@@ -21,8 +22,36 @@ public interface PayloadStore<K, X extends Payload> extends Service {
 
     Optional<X> get(@Nonnull K key);
 
+    /**
+     * Looks up a payload without the side effects of {@link #get(Object)} (interaction/loading source updates).
+     *
+     * @param key the key
+     * @return the payload, if present
+     */
+    default Optional<X> peek(@Nonnull K key) {
+        return get(key);
+    }
+
     boolean save(@Nonnull X payload);
 
+    /**
+     * Refresh any secondary indexes for a payload already held by this store, after its fields were changed in place
+     * (i.e. merged from a newer instance).  No-op for stores without indexes.
+     *
+     * @param payload the payload
+     */
+    default void reindex(@Nonnull X payload) {
+    }
+
+    /**
+     * Apply already extracted index values for a payload, if it is still the instance this store holds.
+     *
+     * @param payload the payload
+     * @param values  its index values, extracted outside the store
+     */
+    default void reindex(@Nonnull X payload, @Nonnull PayloadIndexValues<K, X> values) {
+    }
+
     boolean has(@Nonnull K key);
 
     boolean has(@Nonnull X payload);
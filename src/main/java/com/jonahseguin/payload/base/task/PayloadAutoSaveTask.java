@@ -26,10 +26,11 @@ public class PayloadAutoSaveTask<K, X extends Payload<K>> implements Runnable {
     @Override
     public void run() {
         int failures = cache.saveAll();
+        int skipped = cache.getLastSaveAllSkipped();
         if (failures > 0) {
-            cache.getErrorService().capture(failures + " Payload objects failed to save during auto-save.");
+            cache.getErrorService().capture(failures + " Payload objects failed to save during auto-save (" + skipped + " unchanged skipped).");
         } else {
-            cache.getErrorService().debug("Auto-save completed successfully with 0 failures.");
+            cache.getErrorService().debug("Auto-save completed successfully with 0 failures (" + skipped + " unchanged skipped).");
         }
     }
 
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.base.task;
+
+import com.google.common.base.Preconditions;
+import com.jonahseguin.payload.base.Cache;
+import com.jonahseguin.payload.base.type.Payload;
+import org.bukkit.scheduler.BukkitTask;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Periodically sweeps the local store of a cache, evicting expired (and, if bounded, excess) payloads.
+ * Runs on the same lifecycle as the {@link PayloadAutoSaveTask}.
+ */
+public class PayloadCleanupTask<K, X extends Payload<K>> implements Runnable {
+
+    private final Cache<K, X> cache;
+
+    private BukkitTask task = null;
+
+    public PayloadCleanupTask(@Nonnull Cache<K, X> cache) {
+        Preconditions.checkNotNull(cache);
+        this.cache = cache;
+    }
+
+    @Override
+    public void run() {
+        try {
+            int evicted = cache.getLocalStore().cleanup();
+            if (evicted > 0) {
+                cache.getErrorService().debug("Local cleanup evicted " + evicted + " payloads (" + cache.getLocalStore().size() + " remaining).");
+            }
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error during local store cleanup for cache: " + cache.getName());
+        }
+    }
+
+    public boolean isRunning() {
+        return this.task != null;
+    }
+
+    public void start() {
+        int interval = cache.getSettings().getCleanupIntervalSeconds();
+        if (!this.isRunning() && interval > 0) {
+            this.task = cache.getPlugin().getServer().getScheduler().runTaskTimerAsynchronously(cache.getPlugin(), this, (interval * 20L), (interval * 20L));
+        }
+    }
+
+    public void stop() {
+        if (this.isRunning()) {
+            this.task.cancel();
+            this.task = null;
+        }
+    }
+
+}
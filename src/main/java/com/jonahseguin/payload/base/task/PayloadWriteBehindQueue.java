@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.base.task;
+
+import com.google.common.base.Preconditions;
+import com.jonahseguin.payload.base.Cache;
+import com.jonahseguin.payload.base.type.Payload;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects asynchronous saves and writes them behind in bulk.
+ * Repeated saves of the same key between flushes collapse into a single write.  The queue is flushed every
+ * {@code writeBehindWindowMillis}, as soon as it holds {@code writeBehindFlushSize} payloads, and on shutdown.
+ * Once {@code writeBehindMaxPending} payloads are queued, async callers flush synchronously (backpressure).
+ */
+public class PayloadWriteBehindQueue<K, X extends Payload<K>> implements Runnable {
+
+    private final Cache<K, X> cache;
+    private final ConcurrentMap<K, X> pending = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    @Getter
+    private final AtomicLong enqueued = new AtomicLong(0);
+    @Getter
+    private final AtomicLong coalesced = new AtomicLong(0);
+    @Getter
+    private final AtomicLong written = new AtomicLong(0);
+
+    private BukkitTask task = null;
+
+    public PayloadWriteBehindQueue(@Nonnull Cache<K, X> cache) {
+        Preconditions.checkNotNull(cache);
+        this.cache = cache;
+    }
+
+    @Override
+    public void run() {
+        flush();
+    }
+
+    /**
+     * Queue a payload to be written on the next flush, replacing any save already pending for its key.
+     *
+     * @param payload the payload to save
+     */
+    public void enqueue(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        enqueued.incrementAndGet();
+        if (pending.put(payload.getIdentifier(), payload) != null) {
+            coalesced.incrementAndGet();
+        }
+        int size = pending.size();
+        if (size >= Math.max(1, cache.getSettings().getWriteBehindMaxPending()) && !Bukkit.isPrimaryThread()) {
+            flush();
+        } else if (size >= Math.max(1, cache.getSettings().getWriteBehindFlushSize()) && flushScheduled.compareAndSet(false, true)) {
+            cache.runAsyncImmediately(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Drop the pending save for a payload, i.e. because it was just saved directly.
+     *
+     * @param payload the payload
+     */
+    public void discard(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        pending.remove(payload.getIdentifier());
+    }
+
+    /**
+     * Write every pending payload now.
+     *
+     * @return the number of payloads that failed to save (they stay queued for the next flush)
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            List<X> batch = new ArrayList<>(pending.size());
+            for (K key : pending.keySet()) {
+                X payload = pending.remove(key);
+                if (payload != null) {
+                    batch.add(payload);
+                }
+            }
+            Collection<X> failed = cache.saveAll(batch);
+            written.addAndGet(batch.size() - failed.size());
+            if (!failed.isEmpty()) {
+                // Keep them for the next flush, unless a newer save for the same key was queued meanwhile
+                for (X payload : failed) {
+                    pending.putIfAbsent(payload.getIdentifier(), payload);
+                }
+                cache.getErrorService().capture(failed.size() + " Payload objects failed to save during write-behind flush; they will be retried.");
+            }
+            return failed.size();
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public boolean isRunning() {
+        return this.task != null;
+    }
+
+    public void start() {
+        if (!this.isRunning()) {
+            long ticks = Math.max(1L, cache.getSettings().getWriteBehindWindowMillis() / 50L);
+            this.task = cache.getPlugin().getServer().getScheduler().runTaskTimerAsynchronously(cache.getPlugin(), this, ticks, ticks);
+        }
+    }
+
+    /**
+     * Stop the flush timer and write everything still pending, retrying failed writes once.
+     *
+     * @return the number of payloads that still failed to save
+     */
+    public int stop() {
+        if (this.isRunning()) {
+            this.task.cancel();
+            this.task = null;
+        }
+        return flush() > 0 ? flush() : 0;
+    }
+
+}
@@ -6,6 +6,7 @@
 package com.jonahseguin.payload.base.type;
 
 import com.jonahseguin.payload.base.Cache;
+import org.bson.BsonDocument;
 import org.bson.types.ObjectId;
 
 import javax.annotation.Nonnull;
@@ -76,6 +77,30 @@ public interface Payload<K> {
 
     ObjectId getObjectId();
 
+    /**
+     * Flags this payload as changed so the next save writes it, even if dirty tracking sees no difference.
+     * Only meaningful when dirty tracking is enabled for the cache.
+     */
+    void markDirty();
+
+    boolean isDirty();
+
+    void setDirty(boolean dirty);
+
+    /**
+     * @return hash of this payload's encoded document as of its last save or load (0 if unknown)
+     */
+    long getLastSaveHash();
+
+    void setLastSaveHash(long lastSaveHash);
+
+    /**
+     * @return this payload's document as of its last save or load, used for partial updates (null if unknown)
+     */
+    BsonDocument getSnapshot();
+
+    void setSnapshot(BsonDocument snapshot);
+
     boolean hasValidHandshake();
 
     void onReceiveUpdate();
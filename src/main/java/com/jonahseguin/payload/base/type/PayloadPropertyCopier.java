@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.base.type;
+
+import com.google.common.base.Preconditions;
+import dev.morphia.mapping.codec.pojo.EntityModel;
+import dev.morphia.mapping.codec.pojo.PropertyModel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies the mapped properties of one payload onto another.
+ * Field accessors are resolved once per entity class as {@link MethodHandle}s; properties that can't be
+ * accessed that way (final fields, synthetic properties) fall back to Morphia's {@link PropertyModel} accessor.
+ */
+public final class PayloadPropertyCopier {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> type;
+    private final List<Property> properties;
+
+    private PayloadPropertyCopier(@Nonnull Class<?> type, @Nonnull List<Property> properties) {
+        this.type = type;
+        this.properties = properties;
+    }
+
+    @Nonnull
+    public static PayloadPropertyCopier of(@Nonnull EntityModel model) {
+        Preconditions.checkNotNull(model);
+        List<Property> properties = new ArrayList<>();
+        for (PropertyModel property : model.getProperties()) {
+            properties.add(Property.of(model.getType(), property));
+        }
+        return new PayloadPropertyCopier(model.getType(), List.copyOf(properties));
+    }
+
+    /**
+     * Copies every mapped property from {@code source} onto {@code target}, skipping values that are already
+     * the same reference.
+     *
+     * @param target the payload to update
+     * @param source the payload to read values from
+     */
+    public void copy(@Nonnull Object target, @Nonnull Object source) {
+        Preconditions.checkArgument(type.isInstance(target), "Target is not a " + type.getName());
+        Preconditions.checkArgument(type.isInstance(source), "Source is not a " + type.getName());
+        for (Property property : properties) {
+            property.copy(target, source);
+        }
+    }
+
+    public int size() {
+        return properties.size();
+    }
+
+    private record Property(@Nullable MethodHandle getter, @Nullable MethodHandle setter, @Nonnull PropertyModel model) {
+
+        private static Property of(@Nonnull Class<?> type, @Nonnull PropertyModel model) {
+            Field field = findField(type, model.getName());
+            if (field == null || Modifier.isFinal(field.getModifiers()) || Modifier.isStatic(field.getModifiers())) {
+                return new Property(null, null, model);
+            }
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+                return new Property(lookup.unreflectGetter(field).asType(GETTER_TYPE), lookup.unreflectSetter(field).asType(SETTER_TYPE), model);
+            } catch (IllegalAccessException ex) {
+                return new Property(null, null, model);
+            }
+        }
+
+        @Nullable
+        private static Field findField(@Nonnull Class<?> type, @Nonnull String name) {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                try {
+                    return c.getDeclaredField(name);
+                } catch (NoSuchFieldException ignored) {
+                    // keep walking up the hierarchy
+                }
+            }
+            return null;
+        }
+
+        private void copy(@Nonnull Object target, @Nonnull Object source) {
+            if (getter == null || setter == null) {
+                Object value = model.getValue(source);
+                if (value != model.getValue(target)) {
+                    model.setValue(target, value);
+                }
+                return;
+            }
+            try {
+                Object value = (Object) getter.invokeExact(source);
+                if (value != (Object) getter.invokeExact(target)) {
+                    setter.invokeExact(target, value);
+                }
+            } catch (Throwable ex) {
+                throw new IllegalStateException("Failed to copy property " + model.getName(), ex);
+            }
+        }
+
+    }
+
+}
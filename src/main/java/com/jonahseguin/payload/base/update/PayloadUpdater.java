@@ -6,28 +6,61 @@
 package com.jonahseguin.payload.base.update;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.jonahseguin.payload.base.Cache;
 import com.jonahseguin.payload.base.Service;
 import com.jonahseguin.payload.base.type.Payload;
 import com.jonahseguin.payload.database.DatabaseService;
 import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 import io.lettuce.core.pubsub.api.reactive.RedisPubSubReactiveCommands;
+import lombok.Getter;
 import org.bson.Document;
 
 import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class PayloadUpdater<K, X extends Payload<K>> implements Service {
 
     private static final String KEY_SOURCE_SERVER = "sourceServer";
     private static final String KEY_IDENTIFIER = "identifier";
+    private static final String KEY_IDENTIFIERS = "identifiers";
     private static final String KEY_FORCE_LOAD = "forceLoad";
     private static final String KEY_IS_DELETE = "isDelete";
 
+    /**
+     * What a queued identifier will be published as.  A later push for the same identifier replaces an earlier one,
+     * except that a plain update never downgrades a forced one.
+     */
+    private enum Outbound {
+        UPDATE,
+        FORCE_UPDATE,
+        DELETE
+    }
+
     private final Cache<K, X> cache;
     private final DatabaseService database;
     private RedisPubSubReactiveCommands<String, String> reactive = null;
     private boolean running = false;
     private String channel;
+    private final ConcurrentMap<String, Outbound> outbound = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private ScheduledExecutorService flushExecutor = null;
+    @Getter
+    private final AtomicLong queued = new AtomicLong(0);
+    @Getter
+    private final AtomicLong coalesced = new AtomicLong(0);
+    @Getter
+    private final AtomicLong published = new AtomicLong(0); // packets
+    @Getter
+    private final AtomicLong publishedIdentifiers = new AtomicLong(0);
 
     public PayloadUpdater(Cache<K, X> cache, DatabaseService database) {
         this.cache = cache;
@@ -42,6 +75,9 @@ public class PayloadUpdater<K, X extends Payload<K>> implements Service {
         if (!sub) {
             cache.getErrorService().capture("Failed to subscribe to channel " + this.channel + " in PayloadUpdater for cache: " + cache.getName());
         }
+        if (cache.getSettings().getUpdaterBatchWindowMillis() > 0) {
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("payload-" + cache.getName() + "-updater").setDaemon(true).build());
+        }
         running = true;
         return sub;
     }
@@ -49,6 +85,11 @@ public class PayloadUpdater<K, X extends Payload<K>> implements Service {
     @Override
     public boolean shutdown() {
         Preconditions.checkState(running, "Payload Updater is not running for cache: " + cache.getName());
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+            flushExecutor = null;
+        }
+        flush(); // Don't lose anything queued inside the window
         if (reactive != null) {
             reactive.unsubscribe(channel);
         }
@@ -56,6 +97,13 @@ public class PayloadUpdater<K, X extends Payload<K>> implements Service {
         return true;
     }
 
+    /**
+     * @return identifiers queued for the next batch
+     */
+    public int getPending() {
+        return outbound.size();
+    }
+
     private boolean subscribe() {
         try {
             StatefulRedisPubSubConnection<String, String> connection = database.getRedisPubSub();
@@ -84,24 +132,29 @@ public class PayloadUpdater<K, X extends Payload<K>> implements Service {
             Document document = Document.parse(msg);
             if (document != null) {
                 String sourceServerString = document.getString(KEY_SOURCE_SERVER);
-                String identifierString = document.getString(KEY_IDENTIFIER);
+                List<String> identifierStrings = document.getList(KEY_IDENTIFIERS, String.class);
+                if (identifierStrings == null && document.getString(KEY_IDENTIFIER) != null) {
+                    identifierStrings = Collections.singletonList(document.getString(KEY_IDENTIFIER));
+                }
                 boolean force = document.getBoolean(KEY_FORCE_LOAD, false);
                 boolean isDelete = document.getBoolean(KEY_IS_DELETE, false);
-                if (sourceServerString != null && identifierString != null) {
+                if (sourceServerString != null && identifierStrings != null) {
                     if (!sourceServerString.equalsIgnoreCase(database.getServerService().getThisServer().getName())) {
                         // As long as the source server wasn't us
-                        final K identifier = cache.keyFromString(identifierString);
-                        if (isDelete) {
-                            if (!cache.isCached(identifier)) {
-                                return;
+                        List<K> reload = new ArrayList<>();
+                        for (String identifierString : identifierStrings) {
+                            final K identifier = cache.keyFromString(identifierString);
+                            if (isDelete) {
+                                if (cache.isCached(identifier)) {
+                                    cache.uncache(identifier);
+                                }
+                            } else if (cache.isCached(identifier) || force) {
+                                reload.add(identifier);
                             }
-
-                            cache.uncache(identifier);
-                            return;
                         }
-
-                        if (cache.isCached(identifier) || force) {
-                            cache.runAsyncImmediately(() -> cache.getFromDatabase(identifier).ifPresent(payload -> {
+                        if (!reload.isEmpty()) {
+                            // One $in query for the whole packet instead of a lookup per identifier
+                            cache.runAsyncImmediately(() -> cache.getFromDatabase(reload).forEach(payload -> {
                                 cache.cache(payload);
                                 payload.onReceiveUpdate();
                             }));
@@ -120,13 +173,7 @@ public class PayloadUpdater<K, X extends Payload<K>> implements Service {
 
     public boolean pushDeleteIdentifier(@Nonnull K identifier) {
         try {
-            final Document document = new Document();
-            document.append(KEY_SOURCE_SERVER, database.getServerService().getThisServer().getName());
-            document.append(KEY_IDENTIFIER, cache.keyToString(identifier));
-            document.append(KEY_FORCE_LOAD, true);
-            document.append(KEY_IS_DELETE, true);
-            final String json = document.toJson();
-            cache.runAsyncImmediately(() -> database.getRedis().async().publish(channel, json));
+            enqueue(cache.keyToString(identifier), Outbound.DELETE);
             return true;
         } catch (Exception ex) {
             cache.getErrorService().capture(ex, "Failed to push delete from PayloadUpdater for Payload: " + cache.keyToString(identifier));
@@ -145,13 +192,7 @@ public class PayloadUpdater<K, X extends Payload<K>> implements Service {
     public boolean pushUpdate(@Nonnull X payload, boolean force) {
         try {
             Preconditions.checkNotNull(payload, "Payload cannot be null in PayloadUpdater (pushUpdate)");
-            final Document document = new Document();
-            document.append(KEY_SOURCE_SERVER, database.getServerService().getThisServer().getName());
-            document.append(KEY_IDENTIFIER, cache.keyToString(payload.getIdentifier()));
-            document.append(KEY_FORCE_LOAD, force);
-            document.append(KEY_IS_DELETE, false);
-            final String json = document.toJson();
-            cache.runAsyncImmediately(() -> database.getRedis().async().publish(channel, json));
+            enqueue(cache.keyToString(payload.getIdentifier()), force ? Outbound.FORCE_UPDATE : Outbound.UPDATE);
             return true;
         } catch (Exception ex) {
             cache.getErrorService().capture(ex, "Failed to push update from PayloadUpdater for Payload: " + cache.keyToString(payload.getIdentifier()));
@@ -159,6 +200,74 @@ public class PayloadUpdater<K, X extends Payload<K>> implements Service {
         }
     }
 
+    private void enqueue(@Nonnull String identifier, @Nonnull Outbound type) {
+        queued.incrementAndGet();
+        ScheduledExecutorService executor = flushExecutor;
+        if (executor == null) {
+            // Batching disabled (or not started); publish right away
+            publish(type, Collections.singletonList(identifier));
+            return;
+        }
+        outbound.compute(identifier, (id, current) -> {
+            if (current == null) {
+                return type;
+            }
+            coalesced.incrementAndGet();
+            return current == Outbound.FORCE_UPDATE && type == Outbound.UPDATE ? current : type;
+        });
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                executor.schedule(() -> {
+                    flushScheduled.set(false);
+                    flush();
+                }, cache.getSettings().getUpdaterBatchWindowMillis(), TimeUnit.MILLISECONDS);
+            } catch (Exception ex) {
+                flushScheduled.set(false);
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Publish everything queued: with {@code updaterMultiIdentifierPackets}, one packet per update type (split by
+     * {@code updaterMaxBatchSize}), otherwise one legacy single-identifier packet each.
+     */
+    public void flush() {
+        if (outbound.isEmpty()) {
+            return;
+        }
+        Map<Outbound, List<String>> grouped = new EnumMap<>(Outbound.class);
+        for (String identifier : outbound.keySet()) {
+            Outbound type = outbound.remove(identifier);
+            if (type != null) {
+                grouped.computeIfAbsent(type, t -> new ArrayList<>()).add(identifier);
+            }
+        }
+        // Without multi-identifier packets every identifier gets its own legacy packet (still deduplicated within the window)
+        int maxBatch = cache.getSettings().isUpdaterMultiIdentifierPackets() ? Math.max(1, cache.getSettings().getUpdaterMaxBatchSize()) : 1;
+        grouped.forEach((type, identifiers) -> Lists.partition(identifiers, maxBatch).forEach(batch -> publish(type, batch)));
+    }
+
+    private void publish(@Nonnull Outbound type, @Nonnull List<String> identifiers) {
+        final Document document = new Document();
+        document.append(KEY_SOURCE_SERVER, database.getServerService().getThisServer().getName());
+        if (identifiers.size() == 1) {
+            document.append(KEY_IDENTIFIER, identifiers.get(0)); // Same packet older versions send/understand
+        } else {
+            document.append(KEY_IDENTIFIERS, identifiers);
+        }
+        document.append(KEY_FORCE_LOAD, type == Outbound.FORCE_UPDATE);
+        document.append(KEY_IS_DELETE, type == Outbound.DELETE);
+        // The Lettuce async API doesn't block, so there's no need to hop to an executor first
+        database.getRedis().async().publish(channel, document.toJson()).whenComplete((receivers, ex) -> {
+            if (ex != null) {
+                cache.getErrorService().capture(ex, "Failed to publish " + identifiers.size() + " updates from PayloadUpdater for cache: " + cache.getName());
+            }
+        });
+        published.incrementAndGet();
+        publishedIdentifiers.addAndGet(identifiers.size());
+    }
+
 
     @Override
     public boolean isRunning() {
@@ -12,6 +12,7 @@ import com.jonahseguin.payload.base.PayloadCache;
 import com.jonahseguin.payload.base.PayloadPermission;
 import com.jonahseguin.payload.command.CmdArgs;
 import com.jonahseguin.payload.command.PayloadCommand;
+import com.jonahseguin.payload.mode.profile.store.ProfileStoreLocal;
 
 public class CmdCache implements PayloadCommand {
 
@@ -34,6 +35,20 @@ public class CmdCache implements PayloadCommand {
         args.msg("&7***** &6Payload Cache: {0} &7*****", cacheName);
         args.msg("&7{0} objects currently cached", cache.cachedObjectCount() + "");
         args.msg("&7Current State: {0}", cache.isRunning() ? "&aRunning" : "&cNot running");
+        if (cache.getLocalStore() instanceof ProfileStoreLocal) {
+            ProfileStoreLocal<?> local = (ProfileStoreLocal<?>) cache.getLocalStore();
+            args.msg("&7Local Evictions: {0} &7(Expired: {1}&7, Size: {2}&7)", local.getEvictionCount() + "", local.getExpiredEvictions().get() + "", local.getSizeEvictions().get() + "");
+        }
+        args.msg("&7Async Executor: {0} &7(Pending: {1}&7, Completed: {2}&7)", cache.getSettings().getExecutorStrategy().name(), cache.getPendingAsyncTasks() + "", cache.getCompletedAsyncTasks() + "");
+        if (cache.getWriteBehindQueue().isRunning()) {
+            args.msg("&7Write-Behind: {0} pending &7(Queued: {1}&7, Coalesced: {2}&7, Written: {3}&7)", cache.getWriteBehindQueue().size() + "",
+                    cache.getWriteBehindQueue().getEnqueued().get() + "", cache.getWriteBehindQueue().getCoalesced().get() + "", cache.getWriteBehindQueue().getWritten().get() + "");
+        }
+        if (cache.getUpdater() != null && cache.getUpdater().isRunning()) {
+            args.msg("&7Updater: {0} pending &7(Queued: {1}&7, Coalesced: {2}&7, Packets: {3}&7, Identifiers: {4}&7)", cache.getUpdater().getPending() + "",
+                    cache.getUpdater().getQueued().get() + "", cache.getUpdater().getCoalesced().get() + "", cache.getUpdater().getPublished().get() + "", cache.getUpdater().getPublishedIdentifiers().get() + "");
+        }
+        args.msg("&7Merges: {0} &7(Skipped unchanged: {1}&7)", cache.getMergeCount() + "", cache.getMergeSkipCount() + "");
         if (cache.getDatabase() != null) {
             if (cache.requireMongoDb()) {
                 args.msg("&7MongoDB Status: {0} &7(Init: {1}&7)", (cache.getDatabase().getState().isMongoConnected() ? "&aConnected" : "&cDisconnected"), (cache.getDatabase().getState().isMongoInitConnect() ? "&aYes" : "&cNo"));
@@ -7,6 +7,7 @@ import com.jonahseguin.payload.base.PayloadCache;
 import com.jonahseguin.payload.base.PayloadPermission;
 import com.jonahseguin.payload.command.CmdArgs;
 import com.jonahseguin.payload.command.PayloadCommand;
+import com.jonahseguin.payload.mode.object.PayloadObjectCache;
 
 public class CmdCacheStores implements PayloadCommand {
 
@@ -28,6 +29,9 @@ public class CmdCacheStores implements PayloadCommand {
 
         args.msg("&7***** &6Payload Cache Stores: {0} &7*****", cacheName);
         args.msg("&7- " + cache.getLocalStore().layerName());
+        if (cache instanceof PayloadObjectCache && ((PayloadObjectCache<?>) cache).getSettings().isUseRedis()) {
+            args.msg("&7- " + ((PayloadObjectCache<?>) cache).getRedisStore().layerName());
+        }
         args.msg("&7- " + cache.getDatabaseStore().layerName());
     }
 
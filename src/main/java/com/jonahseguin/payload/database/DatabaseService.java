@@ -39,6 +39,11 @@ public interface DatabaseService extends Service {
 
     StatefulRedisConnection<String, String> getRedis();
 
+    /**
+     * @return a connection with String keys and raw byte[] values, for binary (BSON) payloads
+     */
+    StatefulRedisConnection<String, byte[]> getRedisBinary();
+
     StatefulRedisPubSubConnection<String, String> getRedisPubSub();
 
     ServerService getServerService();
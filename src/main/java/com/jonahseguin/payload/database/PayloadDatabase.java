@@ -63,6 +63,11 @@ public interface PayloadDatabase {
 
     StatefulRedisConnection<String, String> getRedis();
 
+    /**
+     * @return a connection with String keys and raw byte[] values, for binary (BSON) payloads
+     */
+    StatefulRedisConnection<String, byte[]> getRedisBinary();
+
     StatefulRedisPubSubConnection<String, String> getRedisPubSub();
 
     RedisClient getRedisClient();
@@ -0,0 +1,49 @@
+package com.jonahseguin.payload.database.codec;
+
+import com.google.common.base.Preconditions;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes values to (and decodes them from) raw BSON bytes, for storing documents in Redis.
+ */
+public final class BsonBytes {
+
+    private BsonBytes() {
+    }
+
+    @Nonnull
+    public static <T> byte[] encode(@Nonnull Codec<T> codec, @Nonnull T value) {
+        Preconditions.checkNotNull(codec);
+        Preconditions.checkNotNull(value);
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            codec.encode(writer, value, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+
+    public static <T> T decode(@Nonnull Codec<T> codec, @Nonnull byte[] bytes) {
+        return decode(codec, bytes, 0);
+    }
+
+    /**
+     * @param offset where the BSON document starts within {@code bytes}
+     */
+    public static <T> T decode(@Nonnull Codec<T> codec, @Nonnull byte[] bytes, int offset) {
+        Preconditions.checkNotNull(codec);
+        Preconditions.checkNotNull(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, bytes.length - offset).slice();
+        try (BsonBinaryReader reader = new BsonBinaryReader(buffer)) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+}
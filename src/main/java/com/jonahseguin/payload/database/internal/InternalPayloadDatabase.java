@@ -33,6 +33,9 @@ import com.mongodb.client.MongoDatabase;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisURI;
 import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
 import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 import lombok.Getter;
 import lombok.Setter;
@@ -82,6 +85,7 @@ public class InternalPayloadDatabase implements PayloadDatabase, RedisAccess {
     private PayloadRedis payloadRedis = null;
     private RedisClient redisClient = null;
     private StatefulRedisConnection<String, String> redis = null;
+    private StatefulRedisConnection<String, byte[]> redisBinary = null;
     private StatefulRedisPubSubConnection<String, String> redisPubSub = null;
     private PayloadRedisMonitor redisMonitor = null;
 
@@ -225,6 +229,10 @@ public class InternalPayloadDatabase implements PayloadDatabase, RedisAccess {
                 redis = redisClient.connect();
             }
 
+            if (redisBinary == null) {
+                redisBinary = redisClient.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+            }
+
             if (redisPubSub == null) {
                 redisPubSub = redisClient.connectPubSub();
             }
@@ -266,6 +274,12 @@ public class InternalPayloadDatabase implements PayloadDatabase, RedisAccess {
             }
             this.redis = null;
         }
+        if (this.redisBinary != null) {
+            if (this.redisBinary.isOpen()) {
+                this.redisBinary.close();
+            }
+            this.redisBinary = null;
+        }
         if (this.redisClient != null) {
             this.redisClient.shutdown();
             this.redisClient = null;
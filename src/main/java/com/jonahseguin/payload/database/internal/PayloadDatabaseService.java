@@ -91,6 +91,11 @@ public class PayloadDatabaseService implements DatabaseService {
         return database.getRedis();
     }
 
+    @Override
+    public StatefulRedisConnection<String, byte[]> getRedisBinary() {
+        return database.getRedisBinary();
+    }
+
     @Override
     public Datastore getDatastore() {
         return datastore;
@@ -10,6 +10,7 @@ import com.jonahseguin.payload.base.type.Payload;
 import dev.morphia.annotations.Id;
 import lombok.Getter;
 import lombok.Setter;
+import org.bson.BsonDocument;
 import org.bson.types.ObjectId;
 
 import javax.annotation.Nonnull;
@@ -25,6 +26,9 @@ public abstract class PayloadObject implements Payload<String> {
     protected ObjectId objectId = new ObjectId();
     protected transient long cachedTimestamp = System.currentTimeMillis();
     protected transient long handshakeStartTimestamp = 0;
+    protected transient volatile boolean dirty = false; // explicitly marked as changed (dirty tracking)
+    protected transient volatile long lastSaveHash = 0; // hash of the document as of the last save/load (dirty tracking)
+    protected transient volatile BsonDocument snapshot = null; // document as of the last save/load (partial updates)
 
     @Inject
     public PayloadObject(ObjectCache cache) {
@@ -49,6 +53,11 @@ public abstract class PayloadObject implements Payload<String> {
 
     }
 
+    @Override
+    public void markDirty() {
+        this.dirty = true;
+    }
+
     @Override
     public long cachedTimestamp() {
         return this.cachedTimestamp;
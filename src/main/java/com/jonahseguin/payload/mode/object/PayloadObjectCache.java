@@ -6,8 +6,6 @@
 package com.jonahseguin.payload.mode.object;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.google.inject.Injector;
 import com.google.inject.Singleton;
 import com.jonahseguin.payload.PayloadPlugin;
@@ -19,6 +17,7 @@ import com.jonahseguin.payload.base.type.PayloadInstantiator;
 import com.jonahseguin.payload.mode.object.settings.ObjectCacheSettings;
 import com.jonahseguin.payload.mode.object.store.ObjectStoreLocal;
 import com.jonahseguin.payload.mode.object.store.ObjectStoreMongo;
+import com.jonahseguin.payload.mode.object.store.ObjectStoreRedis;
 import lombok.Getter;
 import org.bukkit.Bukkit;
 import org.jetbrains.annotations.NotNull;
@@ -26,13 +25,15 @@ import org.jetbrains.annotations.NotNull;
 import javax.annotation.Nonnull;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Getter
 @Singleton
@@ -41,6 +42,7 @@ public class PayloadObjectCache<X extends PayloadObject> extends PayloadCache<St
     private final ObjectCacheSettings settings = new ObjectCacheSettings();
     private final ConcurrentMap<String, PayloadObjectController<X>> controllers = new ConcurrentHashMap<>();
     private final ObjectStoreLocal<X> localStore = new ObjectStoreLocal<>(this);
+    private final ObjectStoreRedis<X> redisStore = new ObjectStoreRedis<>(this);
     private final ObjectStoreMongo<X> mongoStore = new ObjectStoreMongo<>(this);
     protected String identifierFieldName;
 
@@ -103,6 +105,12 @@ public class PayloadObjectCache<X extends PayloadObject> extends PayloadCache<St
     @Override
     protected boolean initialize() {
         boolean success = true;
+        if (settings.isUseRedis()) {
+            if (!redisStore.start()) {
+                success = false;
+                errorService.capture("Failed to start Redis store");
+            }
+        }
         if (settings.isUseMongo()) {
             if (!mongoStore.start()) {
                 success = false;
@@ -115,13 +123,11 @@ public class PayloadObjectCache<X extends PayloadObject> extends PayloadCache<St
     @Override
     protected boolean terminate() {
         boolean success = true;
-        AtomicInteger failedSaves = new AtomicInteger(0);
-        getCached().forEach(payload -> {
-            if (!save(payload)) {
-                failedSaves.getAndIncrement();
-            }
-        });
-        if (failedSaves.get() > 0) {
+        if (writeBehindQueue.stop() > 0) {
+            success = false;
+        }
+        int failedSaves = saveAll(getCached()).size();
+        if (failedSaves > 0) {
             errorService.capture(failedSaves + " objects failed to save during shutdown");
             success = false;
         }
@@ -130,6 +136,9 @@ public class PayloadObjectCache<X extends PayloadObject> extends PayloadCache<St
         if (!localStore.shutdown()) {
             success = false;
         }
+        if (redisStore.isRunning() && !redisStore.shutdown()) {
+            success = false;
+        }
         if (!mongoStore.shutdown()) {
             success = false;
         }
@@ -166,6 +175,70 @@ public class PayloadObjectCache<X extends PayloadObject> extends PayloadCache<St
         return key;
     }
 
+    /**
+     * Reads an object from the Redis layer, if enabled.
+     *
+     * @param key the object's identifier
+     * @return the object, if it's in Redis
+     */
+    public Optional<X> getFromRedis(@Nonnull String key) {
+        Preconditions.checkNotNull(key);
+        if (!useRedis()) {
+            return Optional.empty();
+        }
+        return redisStore.get(key);
+    }
+
+    @Override
+    public boolean save(@Nonnull X payload) {
+        boolean saved = super.save(payload);
+        if (saved && useRedis()) {
+            redisStore.save(payload); // Write-through once MongoDB has it
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean saveNoCache(@NotNull X payload) {
+        boolean saved = super.saveNoCache(payload);
+        if (saved && useRedis()) {
+            redisStore.save(payload);
+        }
+        return saved;
+    }
+
+    @Nonnull
+    @Override
+    protected Collection<X> afterBulkSave(@Nonnull Collection<X> payloads, @Nonnull Collection<X> failed) {
+        Collection<X> failures = super.afterBulkSave(payloads, failed);
+        if (useRedis()) {
+            Set<X> failedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            failedSet.addAll(failed);
+            for (X payload : payloads) {
+                if (!failedSet.contains(payload)) {
+                    redisStore.save(payload);
+                }
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public void delete(@Nonnull String key) {
+        super.delete(key);
+        if (useRedis()) {
+            redisStore.remove(key);
+        }
+    }
+
+    @Override
+    public void delete(@Nonnull X payload) {
+        super.delete(payload);
+        if (useRedis()) {
+            redisStore.remove(payload);
+        }
+    }
+
     @Override
     public boolean saveAndUpdate(@NotNull X payload) {
         if(!save(payload))
@@ -185,40 +258,24 @@ public class PayloadObjectCache<X extends PayloadObject> extends PayloadCache<St
         return getDatabaseStore().deleteInvalids();
     }
 
-    @Override
-    public void cacheAll() {
-        getAll().forEach(this::cache);
-    }
-
     @Nonnull
     @Override
     public Set<X> getAll() {
-        //Store the values from their key to themselves.
-        Map<String, X> values = Maps.newHashMap();
-
-        localStore.getAll().forEach(value -> values.put(value.getIdentifier(), value));
-        if (settings.isUseMongo()) {
-            mongoStore.getAll().forEach(value -> {
-                values.putIfAbsent(value.getIdentifier(), value);
-            });
+        try (Stream<X> stream = streamAll()) {
+            return stream.collect(Collectors.toCollection(LinkedHashSet::new));
         }
-        return Sets.newHashSet(values.values());
     }
 
     @Override
     public int saveAll() {
-        AtomicInteger failures = new AtomicInteger();
-        for (X object : localStore.getAll()) {
-            try{
-                if (!save(object)) {
-                    failures.getAndIncrement();
-                }
-            }catch(Throwable exc){
-                Bukkit.getLogger().info(String.format("[%s] - Encountered an error while saving cache %s!", payloadPlugin.getName(), object.getIdentifier()));
-                exc.printStackTrace();
-            }
-        }
-        return failures.get();
+        return saveAll(localStore.getAll()).size();
+    }
+
+    /**
+     * @return true if Redis is enabled for this cache and the Redis layer started
+     */
+    public boolean useRedis() {
+        return settings.isUseRedis() && redisStore.isRunning();
     }
 
     @Override
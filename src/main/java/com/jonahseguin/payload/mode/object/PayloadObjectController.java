@@ -40,8 +40,18 @@ public class PayloadObjectController<X extends PayloadObject> implements Payload
                 return;
             }
         }
+        Optional<X> redis = cache.getFromRedis(identifier);
+        if (redis.isPresent()) {
+            payload = new WeakReference<>(redis.get());
+            return;
+        }
         Optional<X> db = cache.getFromDatabase(identifier);
-        db.ifPresent(x -> payload = new WeakReference<>(x));
+        db.ifPresent(x -> {
+            payload = new WeakReference<>(x);
+            if (cache.useRedis()) {
+                cache.getRedisStore().populate(x); // Populate for the next miss on any node, without clobbering a newer save
+            }
+        });
     }
 
     @Override
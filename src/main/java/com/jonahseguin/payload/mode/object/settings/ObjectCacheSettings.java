@@ -16,5 +16,6 @@ public class ObjectCacheSettings extends CacheSettings {
     private boolean useRedis = true;
     private boolean useMongo = true;
     private boolean createOnNull = false;
+    private int redisExpiryTimeSeconds = 3600; // how long objects live in the Redis layer after their last save/load
 
 }
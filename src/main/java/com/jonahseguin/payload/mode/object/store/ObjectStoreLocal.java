@@ -6,6 +6,8 @@
 package com.jonahseguin.payload.mode.object.store;
 
 import com.google.common.base.Preconditions;
+import com.jonahseguin.payload.base.index.PayloadIndexValues;
+import com.jonahseguin.payload.base.store.ObjectIdIndex;
 import com.jonahseguin.payload.mode.object.PayloadObject;
 import com.jonahseguin.payload.mode.object.PayloadObjectCache;
 import lombok.Getter;
@@ -23,6 +25,7 @@ import java.util.concurrent.ConcurrentMap;
 public class ObjectStoreLocal<X extends PayloadObject> extends ObjectCacheStore<X> {
 
     private final ConcurrentMap<String, X> localCache = new ConcurrentHashMap<>();
+    private final ObjectIdIndex<String> objectIdIndex = new ObjectIdIndex<>();
     private boolean running = false;
 
     public ObjectStoreLocal(PayloadObjectCache<X> cache) {
@@ -36,15 +39,49 @@ public class ObjectStoreLocal<X extends PayloadObject> extends ObjectCacheStore<
     }
 
     public Optional<X> getByObjectID(ObjectId id) {
-        return this.localCache.values().stream().filter(x -> x.getObjectId().equals(id)).findFirst();
+        String key = this.objectIdIndex.get(id);
+        X x = key == null ? null : this.localCache.get(key);
+        // The index is refreshed on save/reindex; double check in case the id was changed in place since
+        return x != null && id.equals(x.getObjectId()) ? Optional.of(x) : Optional.empty();
     }
 
     @Override
     public boolean save(@Nonnull X payload) {
-        this.localCache.put(payload.getIdentifier().toLowerCase(), payload);
+        PayloadIndexValues<String, X> indexValues = this.cache.indexValues(payload); // run extractors before locking the key
+        this.localCache.compute(payload.getIdentifier().toLowerCase(), (key, previous) -> {
+            this.objectIdIndex.put(key, payload.getObjectId());
+            if (previous != null && !previous.getIdentifier().equals(payload.getIdentifier())) {
+                this.cache.removeFromIndexes(previous.getIdentifier());
+            }
+            indexValues.apply(payload.getIdentifier());
+            return payload;
+        });
+        if (this.cache.isIndexStale(indexValues)) {
+            this.reindex(payload); // An index was added meanwhile
+        }
         return true;
     }
 
+    @Override
+    public void reindex(@Nonnull X payload) {
+        PayloadIndexValues<String, X> indexValues;
+        do {
+            indexValues = this.cache.indexValues(payload);
+            this.reindex(payload, indexValues);
+        } while (this.cache.isIndexStale(indexValues));
+    }
+
+    @Override
+    public void reindex(@Nonnull X payload, @Nonnull PayloadIndexValues<String, X> indexValues) {
+        this.localCache.computeIfPresent(payload.getIdentifier().toLowerCase(), (key, current) -> {
+            if (current == payload) {
+                this.objectIdIndex.put(key, payload.getObjectId());
+                indexValues.apply(payload.getIdentifier());
+            }
+            return current;
+        });
+    }
+
     @Override
     public boolean has(@Nonnull String key) {
         return this.localCache.containsKey(key.toLowerCase());
@@ -57,7 +94,11 @@ public class ObjectStoreLocal<X extends PayloadObject> extends ObjectCacheStore<
 
     @Override
     public void remove(@Nonnull String key) {
-        this.localCache.remove(key.toLowerCase());
+        this.localCache.computeIfPresent(key.toLowerCase(), (k, current) -> {
+            this.objectIdIndex.remove(k);
+            this.cache.removeFromIndexes(current.getIdentifier());
+            return null;
+        });
     }
 
     @Override
@@ -78,8 +119,14 @@ public class ObjectStoreLocal<X extends PayloadObject> extends ObjectCacheStore<
 
     @Override
     public long clear() {
-        final int size = this.localCache.size();
-        this.localCache.clear();
+        long size = 0;
+        for (String key : this.localCache.keySet()) {
+            if (this.localCache.remove(key) != null) {
+                size++;
+            }
+        }
+        this.objectIdIndex.clear();
+        this.cache.clearIndexes();
         return size;
     }
 
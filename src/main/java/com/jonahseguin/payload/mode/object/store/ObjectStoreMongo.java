@@ -8,6 +8,8 @@ package com.jonahseguin.payload.mode.object.store;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.jonahseguin.payload.PayloadPlugin;
+import com.jonahseguin.payload.base.store.MongoBulkWrite;
+import com.jonahseguin.payload.base.store.PartialUpdates;
 import com.jonahseguin.payload.base.store.PayloadRemoteStore;
 import com.jonahseguin.payload.base.type.PayloadQueryModifier;
 import com.jonahseguin.payload.mode.object.PayloadObject;
@@ -15,6 +17,9 @@ import com.jonahseguin.payload.mode.object.PayloadObjectCache;
 import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
 import dev.morphia.query.Query;
 import dev.morphia.query.filters.Filters;
 import org.bson.Document;
@@ -44,7 +49,10 @@ public class ObjectStoreMongo<X extends PayloadObject> extends ObjectCacheStore<
             Query<X> q = getQuery(key);
             Stream<X> stream = q.stream();
             Optional<X> xp = stream.findFirst();
-            xp.ifPresent(PayloadObject::interact);
+            xp.ifPresent(x -> {
+                x.interact();
+                cache.trackLoaded(x);
+            });
             return xp;
         } catch (MongoException ex) {
             this.getCache().getErrorService().capture(ex, "MongoDB error getting Object from MongoDB Layer: " + key);
@@ -90,6 +98,14 @@ public class ObjectStoreMongo<X extends PayloadObject> extends ObjectCacheStore<
         Preconditions.checkNotNull(payload);
         payload.interact();
         try {
+            if (cache.getSettings().isPartialUpdates()) {
+                if (PartialUpdates.save(cache, payload)) {
+                    return true;
+                }
+                this.cache.getDatabase().getDatastore().save(payload);
+                payload.setSnapshot(cache.encode(payload));
+                return true;
+            }
             return this.cache.getDatabase().getDatastore().save(payload) != null;
         } catch (MongoException ex) {
             this.getCache().getErrorService().capture(ex, "MongoDB error saving Object to MongoDB Layer: " + payload.getIdentifier());
@@ -100,6 +116,22 @@ public class ObjectStoreMongo<X extends PayloadObject> extends ObjectCacheStore<
         }
     }
 
+    @Nonnull
+    @Override
+    public Collection<X> saveAll(@Nonnull Collection<X> payloads) {
+        Preconditions.checkNotNull(payloads);
+        List<X> batch = new ArrayList<>(payloads);
+        batch.forEach(PayloadObject::interact);
+        if (cache.getSettings().isPartialUpdates()) {
+            return PartialUpdates.saveAll(cache, batch);
+        }
+        List<WriteModel<X>> models = new ArrayList<>(batch.size());
+        for (X payload : batch) {
+            models.add(new ReplaceOneModel<>(new Document("_id", payload.getObjectId()), payload, new ReplaceOptions().upsert(true)));
+        }
+        return MongoBulkWrite.execute(cache.getDatabase().getDatastore().getCollection(cache.getPayloadClass()), models, batch, getCache().getErrorService());
+    }
+
     @Override
     public boolean has(@Nonnull X payload) {
         Preconditions.checkNotNull(payload);
@@ -240,7 +272,7 @@ public class ObjectStoreMongo<X extends PayloadObject> extends ObjectCacheStore<
     public Collection<X> getAll() {
         Query<X> q = this.createQuery();
         Stream<X> stream = q.stream();
-        return stream.collect(Collectors.toSet());
+        return stream.peek(cache::trackLoaded).collect(Collectors.toSet());
     }
 
     public void addCriteriaModifier(PayloadQueryModifier<X> modifier) {
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.mode.object.store;
+
+import com.google.common.base.Preconditions;
+import com.jonahseguin.payload.database.codec.BsonBytes;
+import com.jonahseguin.payload.mode.object.PayloadObject;
+import com.jonahseguin.payload.mode.object.PayloadObjectCache;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.bson.codecs.Codec;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+
+/**
+ * Cache-aside Redis layer between the local store and MongoDB.
+ * Objects are stored as BSON under their own key with a TTL, written through on save and read through on a local miss.
+ */
+public class ObjectStoreRedis<X extends PayloadObject> extends ObjectCacheStore<X> {
+
+    private boolean running = false;
+
+    public ObjectStoreRedis(PayloadObjectCache<X> cache) {
+        super(cache);
+    }
+
+    private String redisKey(@Nonnull String key) {
+        return "payload-object:" + cache.getServerSpecificName() + ":" + key;
+    }
+
+    private Codec<X> codec() {
+        return cache.getDatabase().getDatastore().getCodecRegistry().get(cache.getPayloadClass());
+    }
+
+    @Override
+    public Optional<X> get(@Nonnull String key) {
+        Preconditions.checkNotNull(key);
+        try {
+            byte[] bytes = cache.getDatabase().getRedisBinary().sync().get(redisKey(key));
+            if (bytes == null) {
+                return Optional.empty();
+            }
+            X payload = BsonBytes.decode(codec(), bytes);
+            if (payload != null) {
+                payload.interact();
+                cache.trackLoaded(payload);
+            }
+            return Optional.ofNullable(payload);
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error getting Object from Redis Layer: " + key);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean save(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        try {
+            byte[] bytes = BsonBytes.encode(codec(), payload);
+            cache.getDatabase().getRedisBinary().async().setex(redisKey(payload.getIdentifier()), cache.getSettings().getRedisExpiryTimeSeconds(), bytes);
+            return true;
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error saving Object to Redis Layer: " + payload.getIdentifier());
+            return false;
+        }
+    }
+
+    /**
+     * Populate Redis after a MongoDB read.  Unlike {@link #save(PayloadObject)} this never replaces an existing value,
+     * so a copy read before another node's save can't overwrite that node's write-through.
+     *
+     * @param payload the payload that was loaded from MongoDB
+     * @return true if the write was issued
+     */
+    public boolean populate(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        try {
+            byte[] bytes = BsonBytes.encode(codec(), payload);
+            cache.getDatabase().getRedisBinary().async().set(redisKey(payload.getIdentifier()), bytes, SetArgs.Builder.nx().ex(cache.getSettings().getRedisExpiryTimeSeconds()));
+            return true;
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error populating Object in Redis Layer: " + payload.getIdentifier());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean has(@Nonnull String key) {
+        Preconditions.checkNotNull(key);
+        try {
+            return cache.getDatabase().getRedisBinary().sync().exists(redisKey(key)) > 0;
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error checking if Object exists in Redis Layer: " + key);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean has(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        return has(payload.getIdentifier());
+    }
+
+    @Override
+    public void remove(@Nonnull String key) {
+        Preconditions.checkNotNull(key);
+        try {
+            cache.getDatabase().getRedisBinary().async().del(redisKey(key));
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error removing Object from Redis Layer: " + key);
+        }
+    }
+
+    @Override
+    public void remove(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        remove(payload.getIdentifier());
+    }
+
+    @Nonnull
+    @Override
+    public Collection<X> getAll() {
+        // Redis only holds recently used objects; MongoDB is the source of truth for everything
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int cleanup() {
+        // Entries expire on their own
+        return 0;
+    }
+
+    @Override
+    public long clear() {
+        try {
+            List<String> keys = scanKeys();
+            if (!keys.isEmpty()) {
+                return cache.getDatabase().getRedisBinary().sync().del(keys.toArray(new String[0]));
+            }
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error clearing Redis Layer");
+        }
+        return 0;
+    }
+
+    @Override
+    public long deleteInvalids() {
+        return 0;
+    }
+
+    @Override
+    public long size() {
+        try {
+            return scanKeys().size();
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error counting Objects in Redis Layer");
+            return 0;
+        }
+    }
+
+    private List<String> scanKeys() {
+        RedisCommands<String, byte[]> sync = cache.getDatabase().getRedisBinary().sync();
+        ScanArgs args = ScanArgs.Builder.matches(redisKey("*")).limit(500);
+        List<String> keys = new ArrayList<>();
+        ScanCursor cursor = ScanCursor.INITIAL;
+        do {
+            KeyScanCursor<String> result = sync.scan(cursor, args);
+            keys.addAll(result.getKeys());
+            cursor = result;
+        } while (!cursor.isFinished());
+        return keys;
+    }
+
+    @Override
+    public boolean start() {
+        if (cache.getDatabase().getRedisBinary() == null || !cache.getDatabase().getRedisBinary().isOpen()) {
+            cache.getErrorService().capture("Error initializing Redis Object Layer: Redis is not connected");
+            return false;
+        }
+        running = true;
+        return true;
+    }
+
+    @Override
+    public boolean shutdown() {
+        running = false;
+        // Connection is closed by the database
+        return true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Nonnull
+    @Override
+    public String layerName() {
+        return "Object Redis";
+    }
+
+    @Override
+    public boolean isDatabase() {
+        return false;
+    }
+}
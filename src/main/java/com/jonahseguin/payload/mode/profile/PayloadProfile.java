@@ -25,6 +25,7 @@ import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.api.chat.ComponentBuilder;
 import org.apache.commons.lang3.Validate;
 import org.bson.Document;
+import org.bson.BsonDocument;
 import org.bson.types.ObjectId;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -32,6 +33,7 @@ import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 
 import javax.annotation.Nonnull;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -50,6 +52,8 @@ public abstract class PayloadProfile implements Payload<UUID> {
     protected ObjectId objectId = new ObjectId();
     @Indexed
     protected String username;
+    @Indexed
+    protected String usernameLower; // lowercase username for case-insensitive lookups, kept in sync with username
     @Indexed(options = @IndexOptions(unique = true))
     protected String uniqueId;
     protected String loginIp = null; // IP the profile logged in with
@@ -65,6 +69,9 @@ public abstract class PayloadProfile implements Payload<UUID> {
     protected transient Player player = null;
     protected transient long handshakeStartTimestamp = 0; // the time when a handshake starts (when another server requests that we save this profile)
     protected transient boolean handshakeLogin = false; // If the incoming handshake is from the player logging in to a different server.
+    protected transient volatile boolean dirty = false; // explicitly marked as changed (dirty tracking)
+    protected transient volatile long lastSaveHash = 0; // hash of the document as of the last save/load (dirty tracking)
+    protected transient volatile BsonDocument snapshot = null; // document as of the last save/load (partial updates)
 
     @Inject
     public PayloadProfile(ProfileCache cache) {
@@ -74,7 +81,7 @@ public abstract class PayloadProfile implements Payload<UUID> {
 
     public PayloadProfile(ProfileCache cache, String username, UUID uniqueId, String loginIp) {
         this(cache);
-        this.username = username;
+        this.setUsername(username);
         this.uuid = uniqueId;
         this.uniqueId = uniqueId.toString();
         this.loginIp = loginIp;
@@ -87,6 +94,19 @@ public abstract class PayloadProfile implements Payload<UUID> {
     @PostLoad
     private void onPostPayloadLoad() {
         this.uuid = UUID.fromString(this.uniqueId);
+        if (this.usernameLower == null && this.username != null) {
+            this.usernameLower = this.username.toLowerCase(Locale.ROOT); // saved before usernameLower existed (the store backfills these on start)
+        }
+    }
+
+    @PrePersist
+    private void onPrePayloadPersist() {
+        this.usernameLower = this.username == null ? null : this.username.toLowerCase(Locale.ROOT);
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+        this.usernameLower = username == null ? null : username.toLowerCase(Locale.ROOT);
     }
 
     @Override
@@ -94,6 +114,11 @@ public abstract class PayloadProfile implements Payload<UUID> {
 
     }
 
+    @Override
+    public void markDirty() {
+        this.dirty = true;
+    }
+
     @Override
     public boolean hasValidHandshake() {
         if (handshakeStartTimestamp > 0) {
@@ -24,6 +24,7 @@ import com.jonahseguin.payload.mode.profile.network.RedisNetworkService;
 import com.jonahseguin.payload.mode.profile.settings.ProfileCacheSettings;
 import com.jonahseguin.payload.mode.profile.store.ProfileStoreLocal;
 import com.jonahseguin.payload.mode.profile.store.ProfileStoreMongo;
+import com.jonahseguin.payload.mode.profile.store.ProfileStoreRedis;
 import com.jonahseguin.payload.mode.profile.update.ProfileUpdater;
 import com.jonahseguin.payload.server.PayloadServer;
 import lombok.Getter;
@@ -45,6 +46,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Getter
 @Singleton
@@ -54,6 +56,7 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
     private final ConcurrentMap<UUID, PayloadProfileController<X>> controllers = new ConcurrentHashMap<>();
     private final ProfileStoreLocal<X> localStore = new ProfileStoreLocal<>(this);
     private final ProfileStoreMongo<X> mongoStore = new ProfileStoreMongo<>(this);
+    private final ProfileStoreRedis<X> redisStore = new ProfileStoreRedis<>(this);
     @Inject
     private UUIDService uuidService;
     private NetworkService<X> networkService = null;
@@ -94,6 +97,10 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
         }
 
         if (mode.equals(PayloadMode.NETWORK_NODE)) {
+            if (settings.isRedisHandoff() && !redisStore.start()) {
+                success = false;
+                errorService.capture("Failed to start Redis store (Network Node mode) for cache: " + name);
+            }
             if (!handshakeService.start()) {
                 success = false;
                 errorService.capture("Failed to start Profile Handshake Service (Network Node mode) for cache: " + name);
@@ -113,20 +120,26 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
     @Override
     protected boolean terminate() {
         boolean success = true;
+        if (writeBehindQueue.stop() > 0) {
+            success = false;
+        }
         AtomicInteger failedSaves = new AtomicInteger(0);
+        List<X> online = new ArrayList<>();
         for (Player player : plugin.getServer().getOnlinePlayers()) {
-            getFromCache(player).ifPresent(payload -> {
-                if (settings.isSetOfflineOnShutdown()) {
-                    getNetworked(payload).ifPresent(networkProfile -> {
-                        networkProfile.markUnloaded(false);
-                        networkService.save(networkProfile);
-                    });
-                }
-                if (!save(payload)) {
-                    failedSaves.getAndIncrement();
-                }
-            });
+            getFromCache(player).ifPresent(online::add);
         }
+        if (settings.isSetOfflineOnShutdown()) {
+            // One round trip for every online profile instead of one per player
+            Map<UUID, NetworkProfile> networked = networkService.getAll(online.stream().map(PayloadProfile::getUniqueId).toList());
+            for (NetworkProfile networkProfile : networked.values()) {
+                networkProfile.markUnloaded(false);
+            }
+            if (!networked.isEmpty() && !networkService.saveAll(networked.values())) {
+                errorService.capture("Failed to save " + networked.size() + " network profiles during shutdown");
+                success = false;
+            }
+        }
+        failedSaves.addAndGet(saveAll(online).size());
         if (failedSaves.get() > 0) {
             errorService.capture(failedSaves + " objects failed to save during shutdown");
         }
@@ -137,6 +150,9 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
         if (!mongoStore.shutdown()) {
             success = false;
         }
+        if (redisStore.isRunning() && !redisStore.shutdown()) {
+            success = false;
+        }
         if (mode.equals(PayloadMode.NETWORK_NODE)) {
             if (handshakeService.isRunning()) {
                 if (!handshakeService.shutdown()) {
@@ -276,9 +292,10 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
     @Override
     public void cache(@Nonnull X payload) {
         Preconditions.checkNotNull(payload);
-        Optional<X> o = getLocalStore().get(payload.getUniqueId());
+        Optional<X> o = getLocalStore().peek(payload.getUniqueId());
         if (o.isPresent()) {
             updatePayloadFromNewer(o.get(), payload);
+            getLocalStore().reindex(o.get()); // Even unmerged, the cached instance may have been changed in place
         } else {
             getLocalStore().save(payload);
         }
@@ -328,7 +345,11 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
                             return null;
                         }
 
-                        Optional<X> optional = this.get(identifier);
+                        // Prefer the local instance; only fall back to a full controller load on a miss
+                        Optional<X> optional = this.getFromCache(identifier);
+                        if (optional.isEmpty()) {
+                            optional = this.get(identifier);
+                        }
                         return optional.orElse(null);
                     } catch (Exception ignore) {
                         return null;
@@ -436,6 +457,13 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
         return mongoStore.get(key);
     }
 
+    @Override
+    public Collection<X> getFromDatabase(@Nonnull Collection<UUID> keys) {
+        Collection<X> found = super.getFromDatabase(keys);
+        found.forEach(x -> x.setLoadingSource(mongoStore.layerName()));
+        return found;
+    }
+
     @Override
     public Optional<X> getFromCache(@Nonnull String username) {
         Preconditions.checkNotNull(username);
@@ -490,13 +518,14 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
     }
 
     @Override
-    public void cacheAll() {
-        this.getAll().forEach(this::cache);
+    public long deleteInvalidCaches() {
+        return getDatabaseStore().deleteInvalids();
     }
 
+    @Nonnull
     @Override
-    public long deleteInvalidCaches() {
-        return getDatabaseStore().deleteInvalids();
+    public String getIdentifierFieldName() {
+        return "uniqueId";
     }
 
     @Override
@@ -512,13 +541,16 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
 
     @Nonnull
     public Set<X> getAll() {
-        final Set<X> all = this.localStore.getAll().stream().filter(PayloadProfile::isOnline).collect(Collectors.toSet());
-        Collection<X> allOnMongo = this.mongoStore.getAll();
-        for(X payload : allOnMongo) {
-            if(all.stream().noneMatch(thing -> thing.getUniqueId().equals(payload.getUniqueId())))
-                all.add(payload);
+        try (Stream<X> stream = streamAll()) {
+            return stream.collect(Collectors.toCollection(LinkedHashSet::new));
         }
-        return all;
+    }
+
+    @Nonnull
+    @Override
+    protected Collection<X> getLocalForMerge() {
+        // Offline profiles may be stale; prefer their database copy
+        return this.localStore.getAll().stream().filter(PayloadProfile::isOnline).toList();
     }
 
     @Nonnull
@@ -532,35 +564,53 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
     public void saveAsync(@Nonnull X payload) {
         Preconditions.checkNotNull(payload);
         this.cache(payload);
+        if (writeBehindQueue.isRunning()) {
+            writeBehindQueue.enqueue(payload);
+            return;
+        }
         this.runAsyncImmediately(() -> this.save(payload));
     }
 
     @Override
     public boolean save(@Nonnull X payload) {
         Preconditions.checkNotNull(payload, "Cannot save a null Payload");
+        writeBehindQueue.discard(payload); // this save supersedes any queued one
         cache(payload);
+        X cached = cachedInstance(payload); // Dirty state lives on the instance the local store holds (payload may have been merged into it)
+        boolean tracking = settings.isDirtyTracking();
+        long hash = tracking ? hash(cached) : 0L;
+        if (tracking && isUnchanged(cached, hash)) {
+            return true; // Nothing changed since the last save
+        }
         if (mode.equals(PayloadMode.NETWORK_NODE)) {
-            Optional<NetworkProfile> onp = networkService.get(payload);
+            Optional<NetworkProfile> onp = networkService.get(cached);
             if (onp.isPresent()) {
                 NetworkProfile np = onp.get();
-                if (saveMongo(payload)) {
+                if (saveMongo(cached)) {
+                    if (tracking) {
+                        markClean(cached, hash);
+                    }
                     np.markSaved();
                     if (networkService.save(np)) {
                         return true;
                     } else {
-                        errorService.capture("Failed to save profile " + payload.getName() + ": Couldn't save network profile (but saved normal profile)");
+                        errorService.capture("Failed to save profile " + cached.getName() + ": Couldn't save network profile (but saved normal profile)");
                         return false;
                     }
                 } else {
-                    errorService.capture("Failed to save profile " + payload.getName() + ": Failed to save to database (via saveMongo())");
+                    errorService.capture("Failed to save profile " + cached.getName() + ": Failed to save to database (via saveMongo())");
                     return false;
                 }
             } else {
-                errorService.capture("Failed to save profile " + payload.getName() + ": Network Profile doesn't exist (should have been created)");
+                errorService.capture("Failed to save profile " + cached.getName() + ": Network Profile doesn't exist (should have been created)");
                 return false;
             }
         } else {
-            return saveMongo(payload);
+            boolean saved = saveMongo(cached);
+            if (saved && tracking) {
+                markClean(cached, hash);
+            }
+            return saved;
         }
     }
 
@@ -591,27 +641,67 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
         return mongo;
     }
 
+    @Override
+    protected boolean shouldCacheQueried() {
+        // Same rule as a non-login controller load
+        return mode.equals(PayloadMode.NETWORK_NODE) && settings.isAlwaysCacheOnLoadNetworkNode();
+    }
+
     @Override
     public int saveAll() {
         int failures = 0;
+        List<X> online = new ArrayList<>();
         for (Player p : this.getPlugin().getServer().getOnlinePlayers()) {
-            Optional<X> o = this.get(p);
+            Optional<X> o = this.getFromCache(p);
+            if (o.isEmpty()) {
+                o = this.get(p);
+            }
             if (o.isPresent()) {
-                X payload = o.get();
-                payload.interact();
-
-                try {
-                    if (!this.save(payload)) {
-                        failures++;
-                    }
-                } catch (Throwable exc) {
-                    Bukkit.getLogger().info(String.format("[%s] - Encountered an error while saving cache %s!", payloadPlugin.getName(), payload.getIdentifier()));
-                    exc.printStackTrace();
-                }
+                online.add(o.get());
             } else {
                 failures++;
             }
         }
+        return failures + saveAll(online).size();
+    }
+
+    @Nonnull
+    @Override
+    protected Collection<X> afterBulkSave(@Nonnull Collection<X> payloads, @Nonnull Collection<X> failed) {
+        List<X> failures = new ArrayList<>(super.afterBulkSave(payloads, failed));
+        Set<X> failedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        failedSet.addAll(failed);
+        List<X> saved = new ArrayList<>(payloads.size());
+        long now = System.currentTimeMillis();
+        for (X payload : payloads) {
+            if (failedSet.contains(payload)) {
+                payload.setSaveFailed(true);
+            } else {
+                payload.setSaveFailed(false);
+                payload.setLastSaveTimestamp(now);
+                payload.interact();
+                saved.add(payload);
+            }
+        }
+        if (mode.equals(PayloadMode.NETWORK_NODE) && !saved.isEmpty()) {
+            // Mark every saved profile's network profile in one read and one write
+            Map<UUID, NetworkProfile> networked = networkService.getAll(saved.stream().map(PayloadProfile::getUniqueId).toList());
+            List<NetworkProfile> networkProfiles = new ArrayList<>(saved.size());
+            for (X payload : saved) {
+                NetworkProfile np = networked.get(payload.getUniqueId());
+                if (np == null) {
+                    np = networkService.create(payload);
+                } else if (payload.getUsername() != null) {
+                    np.setName(payload.getUsername());
+                }
+                np.markSaved();
+                networkProfiles.add(np);
+            }
+            if (!networkService.saveAll(networkProfiles)) {
+                errorService.capture("Failed to save " + networkProfiles.size() + " network profiles after bulk save (but saved normal profiles)");
+                failures.addAll(saved); // Report (and retry) them so the network state catches up
+            }
+        }
         return failures;
     }
 
@@ -643,14 +733,16 @@ public class PayloadProfileCache<X extends PayloadProfile> extends PayloadCache<
 
     @Override
     public void updatePayloadID() {
-        for (X x : this.getCached()) {
+        Collection<X> cached = this.getCached();
+        for (X x : cached) {
             x.setPayloadId(api.getPayloadID());
-            getNetworked(x).ifPresent(np -> {
-                if (np.isOnlineThisServer()) {
-                    np.setLastSeenServer(serverService.getThisServer().getName());
-                    getNetworkService().save(np);
-                }
-            });
+        }
+        Map<UUID, NetworkProfile> networked = networkService.getAll(cached.stream().map(PayloadProfile::getUniqueId).toList());
+        for (NetworkProfile np : networked.values()) {
+            if (np.isOnlineThisServer()) {
+                np.setLastSeenServer(serverService.getThisServer().getName());
+                getNetworkService().save(np);
+            }
         }
     }
 
@@ -10,6 +10,7 @@ import com.jonahseguin.payload.PayloadMode;
 import com.jonahseguin.payload.PayloadPlugin;
 import com.jonahseguin.payload.base.lang.PLang;
 import com.jonahseguin.payload.base.type.PayloadController;
+import com.jonahseguin.payload.mode.profile.handshake.ProfileHandshakePacket;
 import com.jonahseguin.payload.mode.profile.network.NetworkProfile;
 import com.jonahseguin.payload.server.PayloadServer;
 import lombok.AllArgsConstructor;
@@ -22,7 +23,12 @@ import org.bukkit.entity.Player;
 import javax.annotation.Nonnull;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -223,6 +229,19 @@ public class PayloadProfileController<X extends PayloadProfile> implements Paylo
 
     }
 
+    private void loadAfterHandshake(ProfileHandshakePacket reply) {
+        if (reply != null && reply.isCached() && cache.getRedisStore().isRunning()) {
+            // The other server handed the profile off through Redis; it's ours now, so consume it
+            Optional<X> o = cache.getRedisStore().get(uuid);
+            cache.getRedisStore().remove(uuid);
+            if (o.isPresent()) {
+                payload = o.get();
+                return;
+            }
+        }
+        load(false);
+    }
+
     private Optional<X> cacheNetworkNode() {
         if (!login) {
             Player player = cache.getPlugin().getServer().getPlayer(uuid);
@@ -248,12 +267,12 @@ public class PayloadProfileController<X extends PayloadProfile> implements Paylo
                     // Handshake
                     cache.getErrorService().debug("Handshaking " + uuid.toString() + " from server " + server.getName());
                     long timeNow = System.nanoTime();
-                    handshake(server);
+                    ProfileHandshakePacket reply = handshake(server);
                     long timeThen = System.nanoTime();
                     if (handshakeComplete && !handshakeTimedOut) {
                         timeoutAttempts = 0;
-                        cache.getErrorService().debug("Handshake complete for " + uuid.toString() + ", loading from DB Took %dms".formatted((timeThen - timeNow) / 1000000L));
-                        load(false);
+                        cache.getErrorService().debug("Handshake complete for " + uuid.toString() + ", loading from " + (reply != null && reply.isCached() ? "Redis" : "DB") + " Took %dms".formatted((timeThen - timeNow) / 1000000L));
+                        loadAfterHandshake(reply);
                     } else {
                         // Timed out
                         timeoutAttempts++;
@@ -332,25 +351,30 @@ public class PayloadProfileController<X extends PayloadProfile> implements Paylo
         reset();
     }
 
-    private void handshake(@Nonnull PayloadServer targetServer) {
-        cache.getHandshakeService().handshake(this, targetServer, this.login);
+    private ProfileHandshakePacket handshake(@Nonnull PayloadServer targetServer) {
+        CompletableFuture<ProfileHandshakePacket> reply = cache.getHandshakeService().handshake(this, targetServer, this.login);
         if (Bukkit.isPrimaryThread()) {
             //Handshaking is exceptionally dangerous on the main thread. It should be avoided at all costs.
             cache.getErrorService().capture(new Throwable(), "called handshake() on main thread. This is highly discouraged and WILL cause major slowdown!");
         }
-        while (!handshakeComplete && ((System.currentTimeMillis() - handshakeRequestStartTime) / 1000) < cache.getSettings().getHandshakeTimeoutSeconds()) {
-            try {
-                synchronized (this) {
-                    this.wait(100L);
-                }
-            } catch (InterruptedException ex) {
-                cache.getErrorService().capture(ex, "Interrupted in PayloadProfileController while waiting for handshake for UUID: " + uuid.toString());
-                break;
-            }
+        ProfileHandshakePacket packet = null;
+        try {
+            packet = reply.get(cache.getSettings().getHandshakeTimeoutSeconds(), TimeUnit.SECONDS);
+            handshakeComplete = true;
+        } catch (TimeoutException ex) {
+            reply.cancel(false);
+        } catch (InterruptedException ex) {
+            reply.cancel(false);
+            Thread.currentThread().interrupt();
+            cache.getErrorService().capture(ex, "Interrupted in PayloadProfileController while waiting for handshake for UUID: " + uuid.toString());
+        } catch (CancellationException | ExecutionException ex) {
+            // Superseded by a newer handshake for this player, or the service shut down
+            cache.getErrorService().debug("Handshake for UUID " + uuid.toString() + " was cancelled");
         }
         if (!handshakeComplete) {
             handshakeTimedOut = true;
         }
+        return packet;
     }
 
 }
@@ -9,6 +9,7 @@ import com.jonahseguin.payload.base.Cache;
 import com.jonahseguin.payload.base.PayloadCallback;
 import com.jonahseguin.payload.mode.profile.network.NetworkProfile;
 import com.jonahseguin.payload.mode.profile.network.NetworkService;
+import com.jonahseguin.payload.mode.profile.store.ProfileStoreRedis;
 import com.jonahseguin.payload.mode.profile.settings.ProfileCacheSettings;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.title.Title;
@@ -105,6 +106,8 @@ public interface ProfileCache<X extends PayloadProfile> extends Cache<UUID, X> {
 
     NetworkService<X> getNetworkService();
 
+    ProfileStoreRedis<X> getRedisStore();
+
     NetworkProfile createNetworked();
 
 }
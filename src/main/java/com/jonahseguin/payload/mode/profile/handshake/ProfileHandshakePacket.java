@@ -24,11 +24,16 @@ public class ProfileHandshakePacket {
     private static final String KEY_TARGET_SERVER = "targetServer";
     private static final String KEY_UUID = "uuid";
     private static final String KEY_LOGIN = "login";
+    private static final String KEY_NONCE = "nonce";
+    private static final String KEY_CACHED = "cached";
 
     private String senderServer;
     private final UUID uuid;
     private String targetServer;
     private boolean playerLogin;
+    @Nullable
+    private String nonce; // identifies the handshake attempt; null for packets from older nodes
+    private boolean cached; // set on replies when the sender wrote the saved profile to the Redis profile store
 
     @Nullable
     public static ProfileHandshakePacket fromJSON(@Nonnull String json) {
@@ -38,9 +43,11 @@ public class ProfileHandshakePacket {
         String targetServer = document.getString(KEY_TARGET_SERVER);
         String senderServer = document.getString(KEY_SENDER_SERVER);
         boolean login = document.getBoolean(KEY_LOGIN);
+        String nonce = document.getString(KEY_NONCE);
+        boolean cached = Boolean.TRUE.equals(document.getBoolean(KEY_CACHED));
 
         if (uuidString != null && targetServer != null && senderServer != null) {
-            return new ProfileHandshakePacket(senderServer, UUID.fromString(uuidString), targetServer, login);
+            return new ProfileHandshakePacket(senderServer, UUID.fromString(uuidString), targetServer, login, nonce, cached);
         }
         return null;
     }
@@ -51,6 +58,12 @@ public class ProfileHandshakePacket {
         document.append(KEY_UUID, uuid.toString());
         document.append(KEY_SENDER_SERVER, senderServer);
         document.append(KEY_LOGIN, playerLogin);
+        if (nonce != null) {
+            document.append(KEY_NONCE, nonce);
+        }
+        if (cached) {
+            document.append(KEY_CACHED, true);
+        }
         return document;
     }
 
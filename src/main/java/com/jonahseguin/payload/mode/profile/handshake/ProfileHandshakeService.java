@@ -19,11 +19,18 @@ import org.bukkit.entity.Player;
 
 import javax.annotation.Nonnull;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class ProfileHandshakeService<X extends PayloadProfile> implements Service {
 
     private final ProfileCache<X> cache;
     private final DatabaseService database;
+    /**
+     * In-flight handshakes we've requested, by player; completed when the matching reply arrives.
+     */
+    private final ConcurrentMap<UUID, PendingHandshake> pending = new ConcurrentHashMap<>();
     private String channelRequest;
     private String channelReply;
     private boolean running = false;
@@ -54,6 +61,8 @@ public class ProfileHandshakeService<X extends PayloadProfile> implements Servic
         if (reactive != null) {
             reactive.unsubscribe(channelRequest, channelReply);
         }
+        pending.values().forEach(handshake -> handshake.future.cancel(false));
+        pending.clear();
         running = false;
         return true;
     }
@@ -115,7 +124,10 @@ public class ProfileHandshakeService<X extends PayloadProfile> implements Servic
                     profile.setHandshakeStartTimestamp(System.currentTimeMillis());
                     profile.setHandshakeLogin(packet.isPlayerLogin());
                     profile.onHandshakeRequest();
-                    cache.save(profile);
+                    if (cache.save(profile) && packet.isPlayerLogin() && cache.getSettings().isRedisHandoff() && cache.getRedisStore().isRunning()) {
+                        // Hand the fresh copy over through Redis so the joining server can skip MongoDB
+                        packet.setCached(cache.getRedisStore().save(profile));
+                    }
                 });
             }
             sendReply(packet);
@@ -125,24 +137,56 @@ public class ProfileHandshakeService<X extends PayloadProfile> implements Servic
     private void handleReply(@Nonnull ProfileHandshakePacket packet) {
         Preconditions.checkNotNull(packet, "ProfileHandshakePacket cannot be null");
         UUID uuid = packet.getUuid();
-        if (uuid != null) {
-            final PayloadProfileController<X> controller = cache.controller(uuid);
-            controller.setHandshakeComplete(true);
-            controller.setHandshakeTimedOut(false);
-            synchronized (controller) {
-                controller.notifyAll();
-            }
+        if (uuid == null) {
+            return;
+        }
+        PendingHandshake handshake = pending.get(uuid);
+        if (handshake == null || (packet.getNonce() != null && !packet.getNonce().equals(handshake.nonce))) {
+            // A reply for an attempt that already timed out or was superseded
+            cache.getErrorService().debug("Ignoring stale handshake reply for UUID " + uuid + " from " + packet.getSenderServer());
+            return;
+        }
+        if (pending.remove(uuid, handshake)) {
+            handshake.future.complete(packet);
         }
     }
 
-    public void handshake(@Nonnull PayloadProfileController<X> controller, PayloadServer targetServer, boolean login) {
-        ProfileHandshakePacket packet = new ProfileHandshakePacket(database.getServerService().getThisServer().getName(), controller.getUuid(), targetServer.getName(), login);
+    /**
+     * Requests a handshake from the server the player is currently on.
+     * The returned future completes with the reply packet, or can be cancelled by the caller on timeout.
+     * A newer handshake for the same player cancels any earlier one still pending.
+     */
+    public CompletableFuture<ProfileHandshakePacket> handshake(@Nonnull PayloadProfileController<X> controller, PayloadServer targetServer, boolean login) {
+        final UUID uuid = controller.getUuid();
+        final String nonce = UUID.randomUUID().toString();
+        ProfileHandshakePacket packet = new ProfileHandshakePacket(database.getServerService().getThisServer().getName(), uuid, targetServer.getName(), login, nonce, false);
         String json = packet.toDocument().toJson();
         Preconditions.checkNotNull(json, "JSON cannot be null for handshake in ProfileHandshakeService");
+
+        final PendingHandshake handshake = new PendingHandshake(nonce, new CompletableFuture<>());
+        handshake.future.whenComplete((reply, ex) -> pending.remove(uuid, handshake));
+        PendingHandshake previous = pending.put(uuid, handshake);
+        if (previous != null) {
+            previous.future.cancel(false);
+        }
+
         controller.setHandshakeTimedOut(false);
         controller.setHandshakeComplete(false);
         controller.setHandshakeRequestStartTime(System.currentTimeMillis());
         database.getRedis().async().publish(channelRequest, json);
+        return handshake.future;
+    }
+
+    private static class PendingHandshake {
+
+        private final String nonce;
+        private final CompletableFuture<ProfileHandshakePacket> future;
+
+        private PendingHandshake(String nonce, CompletableFuture<ProfileHandshakePacket> future) {
+            this.nonce = nonce;
+            this.future = future;
+        }
+
     }
 
 }
@@ -10,6 +10,7 @@ import com.jonahseguin.payload.mode.profile.PayloadProfile;
 
 import javax.annotation.Nonnull;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,6 +18,14 @@ public interface NetworkService<X extends PayloadProfile> extends Service {
 
     Optional<NetworkProfile> get(@Nonnull UUID key);
 
+    /**
+     * Batch lookup of network profiles in a single round trip.
+     *
+     * @param keys the profile UUIDs to fetch
+     * @return the profiles that exist, keyed by UUID; absent keys are omitted
+     */
+    Map<UUID, NetworkProfile> getAll(@Nonnull Collection<UUID> keys);
+
     Collection<NetworkProfile> getOnline();
 
     Optional<NetworkProfile> get(@Nonnull X payload);
@@ -25,6 +34,8 @@ public interface NetworkService<X extends PayloadProfile> extends Service {
 
     boolean save(@Nonnull NetworkProfile networkProfile);
 
+    boolean saveAll(@Nonnull Collection<NetworkProfile> networkProfiles);
+
     Optional<X> get(@Nonnull NetworkProfile payload);
 
     NetworkProfile create(@Nonnull X payload);
@@ -8,14 +8,24 @@ package com.jonahseguin.payload.mode.profile.network;
 import com.google.common.base.Preconditions;
 import com.jonahseguin.payload.base.PayloadCache;
 import com.jonahseguin.payload.database.DatabaseService;
+import com.jonahseguin.payload.database.codec.BsonBytes;
 import com.jonahseguin.payload.mode.profile.PayloadProfile;
 import com.jonahseguin.payload.mode.profile.PayloadProfileCache;
 import com.jonahseguin.payload.mode.profile.ProfileCache;
 import com.mongodb.BasicDBObject;
 import dev.morphia.mapping.codec.writer.DocumentWriter;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.MapScanCursor;
+import io.lettuce.core.Range;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
 import org.bson.BsonDocument;
 import org.bson.BsonDocumentWriter;
 import org.bson.Document;
+import org.bson.codecs.Codec;
 import org.bson.codecs.DecoderContext;
 import org.bson.codecs.EncoderContext;
 import org.bson.conversions.Bson;
@@ -25,10 +35,47 @@ import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 
 import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class RedisNetworkService<X extends PayloadProfile> implements NetworkService<X> {
 
+    /**
+     * Max fields requested per HMGET, so huge lookups don't become one giant reply.
+     */
+    private static final int HMGET_BATCH_SIZE = 500;
+
+    /**
+     * First byte of a value stored as raw BSON.  Legacy values are JSON, which always starts with '{'.
+     */
+    private static final byte BSON_MARKER = 0x01;
+    private static final int EMPTY_DOCUMENT_LENGTH = 5;
+
+    /**
+     * How recently a profile must have been seen to count as online (matches {@link NetworkProfile#isOnline()}).
+     */
+    private static final long ONLINE_WINDOW_MILLIS = 60_000L;
+
+    /**
+     * Fields per HSCAN page (and per delete script call) during compaction.
+     */
+    private static final int COMPACTION_SCAN_COUNT = 500;
+
+    /**
+     * Deletes each field (KEYS[1] hash, ARGV field/value pairs) only if it still holds the value that was scanned,
+     * and drops it from the online set (KEYS[2]).  A profile written between the scan and the delete is kept.
+     */
+    private static final String COMPACT_SCRIPT =
+            "local removed = 0\n" +
+            "for i = 1, #ARGV, 2 do\n" +
+            "  if redis.call('HGET', KEYS[1], ARGV[i]) == ARGV[i + 1] then\n" +
+            "    redis.call('HDEL', KEYS[1], ARGV[i])\n" +
+            "    redis.call('ZREM', KEYS[2], ARGV[i])\n" +
+            "    removed = removed + 1\n" +
+            "  end\n" +
+            "end\n" +
+            "return removed";
+
     /**
      * Used to keep track of if the heartbeat monitor has been set up.
      */
@@ -37,6 +84,10 @@ public class RedisNetworkService<X extends PayloadProfile> implements NetworkSer
      * The task in control of doing heartbeats for all network profiles.
      */
     private BukkitTask heartbeatMonitor = null;
+    /**
+     * The task that removes long-offline network profiles from the hash.
+     */
+    private BukkitTask compactionTask = null;
 
     private final ProfileCache<X> cache;
     private final DatabaseService database;
@@ -55,20 +106,8 @@ public class RedisNetworkService<X extends PayloadProfile> implements NetworkSer
         Preconditions.checkNotNull(hashKey, "Hash key cannot be null");
         Preconditions.checkNotNull(keyString, "Key cannot be null");
         try {
-            if (database.getRedis().sync().hexists(hashKey, keyString)) {
-                final String json = database.getRedis().sync().hget(hashKey, keyString);
-                if (json != null && json.length() > 0) {
-                    BasicDBObject dbObject = BasicDBObject.parse(json);
-                    NetworkProfile networkProfile = database.getDatastore().getCodecRegistry().get(NetworkProfile.class).decode(dbObject.toBsonDocument().asBsonReader(), DecoderContext.builder().build());
-                    if (networkProfile != null)
-                        networkProfile.serverService = database.getServerService();
-                    return Optional.ofNullable(networkProfile);
-                } else {
-                    return Optional.empty();
-                }
-            } else {
-                return Optional.empty();
-            }
+            // A single HGET; a null reply means the field is absent
+            return Optional.ofNullable(decode(database.getRedisBinary().sync().hget(hashKey, keyString)));
         } catch (Exception ex) {
             cache.getErrorService().capture(ex, "Error getting network payload from Key in Redis Network Service");
             return Optional.empty();
@@ -76,24 +115,66 @@ public class RedisNetworkService<X extends PayloadProfile> implements NetworkSer
     }
 
     @Override
-    public Collection<NetworkProfile> getOnline() {
+    public Map<UUID, NetworkProfile> getAll(@Nonnull Collection<UUID> uuids) {
+        Preconditions.checkNotNull(uuids, "UUIDs cannot be null");
         final String hashKey = cache.getServerSpecificName();
-        Map<String, String> onlinePlayers = database.getRedis().sync().hgetall(hashKey);
+        Preconditions.checkNotNull(hashKey, "Hash key cannot be null");
+        Map<UUID, NetworkProfile> profiles = new HashMap<>();
+        if (uuids.isEmpty()) {
+            return profiles;
+        }
+        List<String> fields = new ArrayList<>(uuids.size());
+        for (UUID uuid : uuids) {
+            fields.add(cache.keyToString(uuid));
+        }
+        try {
+            for (int i = 0; i < fields.size(); i += HMGET_BATCH_SIZE) {
+                List<String> batch = fields.subList(i, Math.min(fields.size(), i + HMGET_BATCH_SIZE));
+                List<KeyValue<String, byte[]>> values = database.getRedisBinary().sync().hmget(hashKey, batch.toArray(new String[0]));
+                for (KeyValue<String, byte[]> value : values) {
+                    if (!value.hasValue()) {
+                        continue;
+                    }
+                    NetworkProfile networkProfile = decode(value.getValue());
+                    if (networkProfile != null) {
+                        profiles.put(cache.keyFromString(value.getKey()), networkProfile);
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error getting " + uuids.size() + " network payloads in Redis Network Service");
+        }
+        return profiles;
+    }
+
+    @Override
+    public Collection<NetworkProfile> getOnline() {
         Collection<NetworkProfile> onlinePlayerSet = new HashSet<>();
-        onlinePlayers.forEach((uuid, json) -> {
-            if (json != null && json.length() > 0) {
-                BasicDBObject dbObject = BasicDBObject.parse(json);
-                NetworkProfile networkProfile = database.getDatastore().getCodecRegistry().get(NetworkProfile.class).decode(dbObject.toBsonDocument().asBsonReader(), DecoderContext.builder().build());
-                networkProfile.serverService = database.getServerService();
-                if (!networkProfile.isOnline()) {
-                    return;
+        try {
+            // Only profiles seen within the online window, rather than every profile that ever connected
+            List<String> uuids = database.getRedis().sync().zrangebyscore(onlineKey(), Range.create((double) (System.currentTimeMillis() - ONLINE_WINDOW_MILLIS), Double.POSITIVE_INFINITY));
+            List<UUID> keys = new ArrayList<>(uuids.size());
+            for (String uuid : uuids) {
+                keys.add(cache.keyFromString(uuid));
+            }
+            for (NetworkProfile networkProfile : getAll(keys).values()) {
+                if (networkProfile.isOnline()) {
+                    onlinePlayerSet.add(networkProfile);
                 }
-                onlinePlayerSet.add(networkProfile);
             }
-        });
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error getting online network payloads in Redis Network Service");
+        }
         return onlinePlayerSet;
     }
 
+    /**
+     * Sorted set of online profile UUIDs, scored by last seen time.
+     */
+    private String onlineKey() {
+        return cache.getServerSpecificName() + ":online";
+    }
+
     @Override
     public Optional<NetworkProfile> get(@Nonnull X payload) {
         Preconditions.checkNotNull(payload, "Payload cannot be null");
@@ -102,22 +183,11 @@ public class RedisNetworkService<X extends PayloadProfile> implements NetworkSer
         Preconditions.checkNotNull(hashKey, "Hash key cannot be null");
         Preconditions.checkNotNull(keyString, "Key cannot be null");
         try {
-            if (database.getRedis().sync().hexists(hashKey, keyString)) {
-                final String json = database.getRedis().sync().hget(hashKey, keyString);
-                if (json != null && json.length() > 0) {
-                    BasicDBObject dbObject = BasicDBObject.parse(json);
-                    NetworkProfile networkProfile = database.getDatastore().getCodecRegistry().get(NetworkProfile.class).decode(dbObject.toBsonDocument().asBsonReader(), DecoderContext.builder().build());
-                    if (networkProfile != null) {
-                        networkProfile.serverService = database.getServerService();
-                        networkProfile.setIdentifier(payload.getIdentifier());
-                        networkProfile.setName(payload.getUsername());
-                        return Optional.of(networkProfile);
-                    } else {
-                        return createForGet(payload);
-                    }
-                } else {
-                    return createForGet(payload);
-                }
+            NetworkProfile networkProfile = decode(database.getRedisBinary().sync().hget(hashKey, keyString));
+            if (networkProfile != null) {
+                networkProfile.setIdentifier(payload.getIdentifier());
+                networkProfile.setName(payload.getUsername());
+                return Optional.of(networkProfile);
             } else {
                 return createForGet(payload);
             }
@@ -127,6 +197,24 @@ public class RedisNetworkService<X extends PayloadProfile> implements NetworkSer
         }
     }
 
+    private NetworkProfile decode(byte[] value) {
+        if (value == null || value.length == 0) {
+            return null;
+        }
+        NetworkProfile networkProfile;
+        if (value[0] == BSON_MARKER) {
+            networkProfile = BsonBytes.decode(codec(), value, 1);
+        } else {
+            // Written by an older version (or with binaryNetworkProfiles off)
+            BasicDBObject dbObject = BasicDBObject.parse(new String(value, StandardCharsets.UTF_8));
+            networkProfile = codec().decode(dbObject.toBsonDocument().asBsonReader(), DecoderContext.builder().build());
+        }
+        if (networkProfile != null) {
+            networkProfile.serverService = database.getServerService();
+        }
+        return networkProfile;
+    }
+
     private Optional<NetworkProfile> createForGet(@Nonnull X payload) {
         NetworkProfile networkProfile = create(payload);
         if (!save(networkProfile)) {
@@ -157,16 +245,15 @@ public class RedisNetworkService<X extends PayloadProfile> implements NetworkSer
         final String keyString = cache.keyToString(networkProfile.getIdentifier());
         Preconditions.checkNotNull(hashKey, "Hash key cannot be null");
         Preconditions.checkNotNull(keyString, "Key cannot be null");
-        BsonDocument document = new BsonDocument();
-        database.getDatastore().getCodecRegistry().get(NetworkProfile.class).encode(new BsonDocumentWriter(document), networkProfile, EncoderContext.builder().build());
-        if (!document.isEmpty()) {
-            String json = document.toJson();
-            Preconditions.checkNotNull(json, "JSON cannot be null");
-            Preconditions.checkNotNull(cache.getServerSpecificName(), "Server specific cache name cannot be null");
-            Preconditions.checkNotNull(networkProfile.getIdentifier(), "Payload identifier cannot be null");
-            Preconditions.checkNotNull(cache.keyToString(networkProfile.getIdentifier()), "Payload identifier key cannot be null");
+        byte[] value = encode(networkProfile);
+        if (value != null) {
             try {
-                database.getRedis().async().hset(hashKey, keyString, json);
+                database.getRedisBinary().async().hset(hashKey, keyString, value);
+                if (networkProfile.isOnline()) {
+                    database.getRedis().async().zadd(onlineKey(), networkProfile.getLastSeen(), keyString);
+                } else {
+                    database.getRedis().async().zrem(onlineKey(), keyString);
+                }
                 return true;
             } catch (Exception ex) {
                 cache.getErrorService().capture(ex, "Error saving NetworkProfile in Redis Network Service for UUID: " + cache.keyToString(networkProfile.getIdentifier()));
@@ -176,6 +263,128 @@ public class RedisNetworkService<X extends PayloadProfile> implements NetworkSer
         return false;
     }
 
+    @Override
+    public boolean saveAll(@Nonnull Collection<NetworkProfile> networkProfiles) {
+        Preconditions.checkNotNull(networkProfiles, "NetworkProfiles cannot be null");
+        final String hashKey = cache.getServerSpecificName();
+        Preconditions.checkNotNull(hashKey, "Hash key cannot be null");
+        Map<String, byte[]> fields = new HashMap<>();
+        List<ScoredValue<String>> online = new ArrayList<>();
+        List<String> offline = new ArrayList<>();
+        for (NetworkProfile networkProfile : networkProfiles) {
+            Preconditions.checkNotNull(networkProfile.getIdentifier(), "Payload identifier cannot be null");
+            byte[] value = encode(networkProfile);
+            if (value != null) {
+                String keyString = cache.keyToString(networkProfile.getIdentifier());
+                fields.put(keyString, value);
+                if (networkProfile.isOnline()) {
+                    online.add(ScoredValue.just(networkProfile.getLastSeen(), keyString));
+                } else {
+                    offline.add(keyString);
+                }
+            }
+        }
+        if (fields.isEmpty()) {
+            return true;
+        }
+        try {
+            // One multi-field HSET for the whole batch
+            database.getRedisBinary().async().hset(hashKey, fields);
+            updateOnline(online, offline);
+            return true;
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error saving " + fields.size() + " NetworkProfiles in Redis Network Service");
+            return false;
+        }
+    }
+
+    /**
+     * Removes network profiles that are offline and were last seen longer ago than the retention period.
+     * Only one node per interval does the work, guarded by a short-lived lock key.
+     *
+     * @return the number of profiles removed, or -1 if another node holds the lock (or compaction is disabled)
+     */
+    public long compact() {
+        long retentionSeconds = cache.getSettings().getNetworkProfileRetentionSeconds();
+        if (retentionSeconds <= 0) {
+            return -1;
+        }
+        final String hashKey = cache.getServerSpecificName();
+        long lockSeconds = Math.max(60, cache.getSettings().getNetworkCompactionIntervalSeconds() - 5);
+        try {
+            String acquired = database.getRedis().sync().set(hashKey + ":compaction-lock", cache.getApi().getPayloadID(), SetArgs.Builder.nx().ex(lockSeconds));
+            if (!"OK".equals(acquired)) {
+                return -1;
+            }
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error acquiring network profile compaction lock");
+            return -1;
+        }
+
+        long cutoff = System.currentTimeMillis() - (retentionSeconds * 1000L);
+        long scanned = 0;
+        long removed = 0;
+        try {
+            ScanCursor cursor = ScanCursor.INITIAL;
+            do {
+                MapScanCursor<String, byte[]> page = database.getRedisBinary().sync().hscan(hashKey, cursor, ScanArgs.Builder.limit(COMPACTION_SCAN_COUNT));
+                List<byte[]> expired = new ArrayList<>(); // field, scanned value, field, scanned value...
+                for (Map.Entry<String, byte[]> entry : page.getMap().entrySet()) {
+                    scanned++;
+                    NetworkProfile networkProfile;
+                    try {
+                        networkProfile = decode(entry.getValue());
+                    } catch (Exception ex) {
+                        continue; // Leave anything we can't read alone
+                    }
+                    if (networkProfile != null && !networkProfile.isOnline() && networkProfile.getLastSeen() < cutoff) {
+                        expired.add(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                        expired.add(entry.getValue());
+                    }
+                }
+                if (!expired.isEmpty()) {
+                    Long deleted = database.getRedisBinary().sync().eval(COMPACT_SCRIPT, ScriptOutputType.INTEGER, new String[]{hashKey, onlineKey()}, expired.toArray(new byte[0][]));
+                    removed += deleted == null ? 0 : deleted;
+                }
+                cursor = page;
+            } while (!cursor.isFinished());
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error compacting network profiles in Redis Network Service");
+        }
+        cache.getErrorService().debug("Network profile compaction scanned " + scanned + " and removed " + removed + " profiles not seen in " + retentionSeconds + "s");
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updateOnline(@Nonnull List<ScoredValue<String>> online, @Nonnull List<String> offline) {
+        if (!online.isEmpty()) {
+            database.getRedis().async().zadd(onlineKey(), online.toArray(new ScoredValue[0]));
+        }
+        if (!offline.isEmpty()) {
+            database.getRedis().async().zrem(onlineKey(), offline.toArray(new String[0]));
+        }
+    }
+
+    private byte[] encode(@Nonnull NetworkProfile networkProfile) {
+        if (!cache.getSettings().isBinaryNetworkProfiles()) {
+            BsonDocument document = new BsonDocument();
+            codec().encode(new BsonDocumentWriter(document), networkProfile, EncoderContext.builder().build());
+            return document.isEmpty() ? null : document.toJson().getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] bson = BsonBytes.encode(codec(), networkProfile);
+        if (bson.length <= EMPTY_DOCUMENT_LENGTH) {
+            return null;
+        }
+        byte[] value = new byte[bson.length + 1];
+        value[0] = BSON_MARKER;
+        System.arraycopy(bson, 0, value, 1, bson.length);
+        return value;
+    }
+
+    private Codec<NetworkProfile> codec() {
+        return database.getDatastore().getCodecRegistry().get(NetworkProfile.class);
+    }
+
     @Override
     public Optional<X> get(@Nonnull NetworkProfile payload) {
         Preconditions.checkNotNull(payload);
@@ -196,6 +405,15 @@ public class RedisNetworkService<X extends PayloadProfile> implements NetworkSer
         running = true;
         if(!heartbeatMonitorSetup)
             initHeartbeatMonitor();
+        long interval = cache.getSettings().getNetworkCompactionIntervalSeconds() * 20L;
+        if (compactionTask == null && interval > 0 && cache.getSettings().getNetworkProfileRetentionSeconds() > 0) {
+            compactionTask = new BukkitRunnable() {
+                @Override
+                public void run() {
+                    compact();
+                }
+            }.runTaskTimerAsynchronously(cache.getPlugin(), interval, interval);
+        }
         return true;
     }
 
@@ -207,6 +425,10 @@ public class RedisNetworkService<X extends PayloadProfile> implements NetworkSer
             heartbeatMonitor = null;
             heartbeatMonitorSetup = false;
         }
+        if (compactionTask != null) {
+            compactionTask.cancel();
+            compactionTask = null;
+        }
         return true;
     }
 
@@ -219,16 +441,34 @@ public class RedisNetworkService<X extends PayloadProfile> implements NetworkSer
         heartbeatMonitor = new BukkitRunnable() {
             @Override
             public void run() {
-                for (Player player : Bukkit.getOnlinePlayers()) {
-                    Optional<NetworkProfile> networked = cache.getNetworked(player.getUniqueId());
-                    networked.ifPresent(profile -> {
-                        profile.heartbeat();
-                        save(profile);
-                    });
-                }
+                heartbeat();
             }
         }.runTaskTimerAsynchronously(cache.getPlugin(), 0, 300L); //Do every 15 seconds to lessen network use.
 
         heartbeatMonitorSetup = true;
     }
+
+    /**
+     * Refreshes every online player's network profile using one HMGET and one multi-field HSET.
+     */
+    private void heartbeat() {
+        try {
+            // Prune anyone whose last heartbeat is outside the online window (i.e. their server died)
+            database.getRedis().async().zremrangebyscore(onlineKey(), Range.create(Double.NEGATIVE_INFINITY, (double) (System.currentTimeMillis() - ONLINE_WINDOW_MILLIS)));
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error pruning online registry in Redis Network Service");
+        }
+        List<UUID> online = new ArrayList<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            online.add(player.getUniqueId());
+        }
+        if (online.isEmpty()) {
+            return;
+        }
+        Collection<NetworkProfile> profiles = getAll(online).values();
+        for (NetworkProfile profile : profiles) {
+            profile.heartbeat();
+        }
+        saveAll(profiles);
+    }
 }
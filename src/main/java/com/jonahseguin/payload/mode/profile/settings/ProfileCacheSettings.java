@@ -16,7 +16,12 @@ import lombok.Setter;
 public class ProfileCacheSettings extends CacheSettings {
 
     private int localExpiryTimeSeconds = 7200;
-    private int redisExpiryTimeSeconds = 14400;
+    private int localMaxSize = 0; // max profiles held locally; least recently used offline profiles are evicted past this (0 = unbounded)
+    private int redisExpiryTimeSeconds = 14400; // how long a handed-off profile stays in Redis if the joining server never reads it
+    private boolean binaryNetworkProfiles = false; // store network profiles in Redis as raw BSON; only enable once every node is upgraded (older nodes can only read JSON)
+    private long networkProfileRetentionSeconds = 2592000; // offline network profiles not seen for this long are removed from Redis (<= 0 to keep forever)
+    private int networkCompactionIntervalSeconds = 3600; // how often one node compacts the network profile hash
+    private boolean redisHandoff = true; // pass profiles between servers through Redis during handshakes instead of re-reading MongoDB
     private int handshakeTimeoutSeconds = 5;
     private boolean denyJoinOnHandshakeTimeout = false; // will allow for failure handling
     private boolean denyJoinOnHandshakeFailDatabase = false; // deny join if database is down during handshake?
@@ -6,8 +6,11 @@
 package com.jonahseguin.payload.mode.profile.store;
 
 import com.google.common.base.Preconditions;
+import com.jonahseguin.payload.base.index.PayloadIndexValues;
+import com.jonahseguin.payload.base.store.ObjectIdIndex;
 import com.jonahseguin.payload.mode.profile.PayloadProfile;
 import com.jonahseguin.payload.mode.profile.PayloadProfileCache;
+import com.jonahseguin.payload.mode.profile.PayloadProfileController;
 import lombok.Getter;
 import org.bson.types.ObjectId;
 
@@ -15,11 +18,20 @@ import javax.annotation.Nonnull;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Getter
 public class ProfileStoreLocal<X extends PayloadProfile> extends ProfileCacheStore<X> {
 
+    // Recently touched profiles are never evicted for size, so a profile cached during pre-login survives until join
+    private static final long SIZE_EVICTION_GRACE_MILLIS = 60_000L;
+
     private final ConcurrentMap<UUID, X> localCache = new ConcurrentHashMap<>();
+    private final ObjectIdIndex<UUID> objectIdIndex = new ObjectIdIndex<>();
+    private final AtomicLong expiredEvictions = new AtomicLong(0);
+    private final AtomicLong sizeEvictions = new AtomicLong(0);
+    private volatile long lastOverflowSweep = 0L;
     private boolean running = false;
 
     public ProfileStoreLocal(PayloadProfileCache<X> cache) {
@@ -37,18 +49,64 @@ public class ProfileStoreLocal<X extends PayloadProfile> extends ProfileCacheSto
         return Optional.ofNullable(x);
     }
 
+    @Override
+    public Optional<X> peek(@Nonnull UUID uuid) {
+        Preconditions.checkNotNull(uuid);
+        return Optional.ofNullable(localCache.get(uuid));
+    }
+
     public X getByObjectID(ObjectId id) {
-        return localCache.values().stream().filter(x -> x.getObjectId().equals(id)).findFirst().orElse(null);
+        UUID uuid = objectIdIndex.get(id);
+        X x = uuid == null ? null : localCache.get(uuid);
+        // The index is refreshed on save/reindex; double check in case the id was changed in place since
+        return x != null && id.equals(x.getObjectId()) ? x : null;
     }
 
     @Override
     public boolean save(@Nonnull X payload) {
         Preconditions.checkNotNull(payload);
         payload.interact();
-        localCache.put(payload.getUniqueId(), payload);
+        PayloadIndexValues<UUID, X> indexValues = cache.indexValues(payload); // run extractors before locking the key
+        localCache.compute(payload.getUniqueId(), (uuid, previous) -> {
+            objectIdIndex.put(uuid, payload.getObjectId());
+            indexValues.apply(uuid);
+            return payload;
+        });
+        if (cache.isIndexStale(indexValues)) {
+            reindex(payload); // An index was added meanwhile
+        }
+        int maxSize = cache.getSettings().getLocalMaxSize();
+        if (maxSize > 0 && localCache.size() > maxSize && System.currentTimeMillis() - lastOverflowSweep > 1000L) {
+            // Over capacity; sweep now rather than waiting for the cleanup task
+            lastOverflowSweep = System.currentTimeMillis();
+            cache.runAsyncImmediately(this::cleanup);
+        }
         return true;
     }
 
+    @Override
+    public void reindex(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        PayloadIndexValues<UUID, X> indexValues;
+        do {
+            indexValues = cache.indexValues(payload);
+            reindex(payload, indexValues);
+        } while (cache.isIndexStale(indexValues));
+    }
+
+    @Override
+    public void reindex(@Nonnull X payload, @Nonnull PayloadIndexValues<UUID, X> indexValues) {
+        Preconditions.checkNotNull(payload);
+        Preconditions.checkNotNull(indexValues);
+        localCache.computeIfPresent(payload.getUniqueId(), (uuid, current) -> {
+            if (current == payload) {
+                objectIdIndex.put(uuid, payload.getObjectId());
+                indexValues.apply(uuid);
+            }
+            return current;
+        });
+    }
+
     @Override
     public boolean has(@Nonnull UUID key) {
         Preconditions.checkNotNull(key);
@@ -58,7 +116,11 @@ public class ProfileStoreLocal<X extends PayloadProfile> extends ProfileCacheSto
     @Override
     public void remove(@Nonnull UUID key) {
         Preconditions.checkNotNull(key);
-        localCache.remove(key);
+        localCache.computeIfPresent(key, (uuid, current) -> {
+            objectIdIndex.remove(uuid);
+            cache.removeFromIndexes(uuid);
+            return null;
+        });
     }
 
     @Override
@@ -72,31 +134,92 @@ public class ProfileStoreLocal<X extends PayloadProfile> extends ProfileCacheSto
     @Override
     public void remove(@Nonnull X payload) {
         Preconditions.checkNotNull(payload);
-        localCache.remove(payload.getUniqueId());
+        remove(payload.getUniqueId());
     }
 
     @Override
     public int cleanup() {
+        long now = System.currentTimeMillis();
         long expiryTimeSeconds = getCache().getSettings().getLocalExpiryTimeSeconds();
-        Set<UUID> purge = new HashSet<>();
-        for (Map.Entry<UUID, X> entry : localCache.entrySet()) {
-            if (!entry.getValue().isOnline() && entry.getValue().getLastInteractionTimestamp() < (System.currentTimeMillis() - (expiryTimeSeconds * 1000))) {
+        int maxSize = getCache().getSettings().getLocalMaxSize();
+
+        int expired = 0;
+        List<X> candidates = new ArrayList<>();
+        for (X payload : localCache.values()) {
+            if (payload.isOnline()) {
+                continue; // Never evict online players
+            }
+            if (payload.getLastInteractionTimestamp() < (now - (expiryTimeSeconds * 1000))) {
                 // Expired
-                purge.add(entry.getKey());
+                if (evict(payload)) {
+                    expired++;
+                }
+            } else if (maxSize > 0 && payload.getLastInteractionTimestamp() < (now - SIZE_EVICTION_GRACE_MILLIS)) {
+                candidates.add(payload);
+            }
+        }
+
+        int evicted = 0;
+        if (maxSize > 0 && localCache.size() > maxSize) {
+            // Least recently used first
+            candidates.sort(Comparator.comparingLong(PayloadProfile::getLastInteractionTimestamp));
+            for (X payload : candidates) {
+                if (localCache.size() <= maxSize) {
+                    break;
+                }
+                if (evict(payload)) {
+                    evicted++;
+                }
             }
         }
 
-        for (UUID key : purge) {
-            cache.uncache(key);
+        expiredEvictions.addAndGet(expired);
+        sizeEvictions.addAndGet(evicted);
+        return expired + evicted;
+    }
+
+    private boolean evict(@Nonnull X payload) {
+        UUID uuid = payload.getUniqueId();
+        PayloadProfileController<X> controller = cache.getController(uuid);
+        if (controller != null && controller.getPayloadLock().isLocked()) {
+            return false; // Being loaded/cached right now, leave it alone
+        }
+        if (!cache.persistIfChanged(payload)) {
+            return false; // Changed since its last save and we couldn't write it; keep it until we can
         }
+        AtomicBoolean removed = new AtomicBoolean(false);
+        localCache.computeIfPresent(uuid, (key, current) -> {
+            if (current != payload) {
+                return current;
+            }
+            objectIdIndex.remove(key);
+            cache.removeFromIndexes(key);
+            removed.set(true);
+            return null;
+        });
+        if (!removed.get()) {
+            return false; // Replaced or already removed
+        }
+        if (controller != null) {
+            cache.removeController(uuid);
+        }
+        return true;
+    }
 
-        return purge.size();
+    public long getEvictionCount() {
+        return expiredEvictions.get() + sizeEvictions.get();
     }
 
     @Override
     public long clear() {
-        long i = localCache.size();
-        localCache.clear();
+        long i = 0;
+        for (UUID uuid : localCache.keySet()) {
+            if (localCache.remove(uuid) != null) {
+                i++;
+            }
+        }
+        objectIdIndex.clear();
+        cache.clearIndexes();
         return i;
     }
 
@@ -133,7 +256,7 @@ public class ProfileStoreLocal<X extends PayloadProfile> extends ProfileCacheSto
 
     @Override
     public boolean isRunning() {
-        return false;
+        return running;
     }
 
     @Nonnull
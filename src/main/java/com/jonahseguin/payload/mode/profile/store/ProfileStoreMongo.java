@@ -8,6 +8,8 @@ package com.jonahseguin.payload.mode.profile.store;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.jonahseguin.payload.PayloadPlugin;
+import com.jonahseguin.payload.base.store.MongoBulkWrite;
+import com.jonahseguin.payload.base.store.PartialUpdates;
 import com.jonahseguin.payload.base.store.PayloadRemoteStore;
 import com.jonahseguin.payload.base.type.PayloadQueryModifier;
 import com.jonahseguin.payload.mode.profile.PayloadProfile;
@@ -15,6 +17,10 @@ import com.jonahseguin.payload.mode.profile.PayloadProfileCache;
 import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
 import dev.morphia.query.Query;
 import dev.morphia.query.filters.Filters;
 import org.bson.Document;
@@ -28,6 +34,7 @@ public class ProfileStoreMongo<X extends PayloadProfile> extends ProfileCacheSto
 
     private final Set<PayloadQueryModifier<X>> queryModifiers = new HashSet<>();
     private boolean running = false;
+    private volatile boolean usernameLowerBackfilled = false; // once true, every document has usernameLower
 
     public ProfileStoreMongo(PayloadProfileCache<X> cache) {
         super(cache);
@@ -39,7 +46,10 @@ public class ProfileStoreMongo<X extends PayloadProfile> extends ProfileCacheSto
         try {
             Query<X> q = getQuery(key);
             Optional<X> o = Optional.ofNullable(q.first());
-            o.ifPresent(x -> x.setLoadingSource(layerName()));
+            o.ifPresent(x -> {
+                x.setLoadingSource(layerName());
+                cache.trackLoaded(x);
+            });
             return o;
         } catch (MongoException ex) {
             getCache().getErrorService().capture(ex, "MongoDB error getting Profile from MongoDB Layer: " + key.toString());
@@ -80,12 +90,16 @@ public class ProfileStoreMongo<X extends PayloadProfile> extends ProfileCacheSto
     public Optional<X> getByUsername(@Nonnull String username) {
         Preconditions.checkNotNull(username);
         try {
-            Query<X> q = getQueryForUsername(username);
-            Optional<X> xp = Optional.ofNullable(q.first());
+            Optional<X> xp = Optional.ofNullable(getQueryForUsername(username).first());
+            if (xp.isEmpty() && !usernameLowerBackfilled) {
+                // Documents saved before usernameLower existed only match on the exact name (until the backfill has run)
+                xp = Optional.ofNullable(getQueryForExactUsername(username).first());
+            }
             X x = xp.orElse(null);
             if (x != null) {
                 x.interact();
                 x.setLoadingSource(layerName());
+                cache.trackLoaded(x);
             }
             return xp;
         } catch (MongoException ex) {
@@ -102,6 +116,14 @@ public class ProfileStoreMongo<X extends PayloadProfile> extends ProfileCacheSto
         Preconditions.checkNotNull(payload);
         payload.interact();
         try {
+            if (cache.getSettings().isPartialUpdates()) {
+                if (PartialUpdates.save(cache, payload)) {
+                    return true;
+                }
+                cache.getDatabase().getDatastore().save(payload);
+                payload.setSnapshot(cache.encode(payload));
+                return true;
+            }
             cache.getDatabase().getDatastore().save(payload);
             return true;
         } catch (MongoException ex) {
@@ -115,6 +137,22 @@ public class ProfileStoreMongo<X extends PayloadProfile> extends ProfileCacheSto
         }
     }
 
+    @Nonnull
+    @Override
+    public Collection<X> saveAll(@Nonnull Collection<X> payloads) {
+        Preconditions.checkNotNull(payloads);
+        List<X> batch = new ArrayList<>(payloads);
+        batch.forEach(PayloadProfile::interact);
+        if (cache.getSettings().isPartialUpdates()) {
+            return PartialUpdates.saveAll(cache, batch);
+        }
+        List<WriteModel<X>> models = new ArrayList<>(batch.size());
+        for (X payload : batch) {
+            models.add(new ReplaceOneModel<>(new Document("_id", payload.getObjectId()), payload, new ReplaceOptions().upsert(true)));
+        }
+        return MongoBulkWrite.execute(cache.getDatabase().getDatastore().getCollection(cache.getPayloadClass()), models, batch, getCache().getErrorService());
+    }
+
     @Override
     public boolean has(@Nonnull X payload) {
         Preconditions.checkNotNull(payload);
@@ -219,10 +257,33 @@ public class ProfileStoreMongo<X extends PayloadProfile> extends ProfileCacheSto
         if (cache.getSettings().isServerSpecific()) {
             addCriteriaModifier(query -> query.filter(Filters.eq("payloadId", cache.getApi().getPayloadID())));
         }
+        if (success) {
+            backfillUsernameLower();
+        }
         running = true;
         return success;
     }
 
+    /**
+     * Fills in usernameLower for profiles saved before it existed, so the username lookup index covers them.
+     * Done in the database rather than on load: with dirty tracking or partial updates a profile whose only change
+     * is the backfilled field would never be saved.
+     */
+    private void backfillUsernameLower() {
+        try {
+            MongoCollection<Document> collection = cache.getDatabase().getDatastore().getCollection(cache.getPayloadClass()).withDocumentClass(Document.class);
+            UpdateResult result = collection.updateMany(
+                    new Document("usernameLower", new Document("$exists", false)).append("username", new Document("$type", "string")),
+                    List.of(new Document("$set", new Document("usernameLower", new Document("$toLower", "$username")))));
+            if (result.getModifiedCount() > 0) {
+                cache.getErrorService().debug("Backfilled usernameLower for " + result.getModifiedCount() + " profiles");
+            }
+            usernameLowerBackfilled = true;
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error backfilling usernameLower in MongoDB Profile Layer");
+        }
+    }
+
     @Override
     public boolean shutdown() {
         running = false;
@@ -267,7 +328,16 @@ public class ProfileStoreMongo<X extends PayloadProfile> extends ProfileCacheSto
         return q;
     }
 
+    /**
+     * Case-insensitive username query, backed by the usernameLower index.
+     */
     public Query<X> getQueryForUsername(String username) {
+        Query<X> q = createQuery();
+        q.filter(Filters.eq("usernameLower", username.toLowerCase(Locale.ROOT)));
+        return q;
+    }
+
+    public Query<X> getQueryForExactUsername(String username) {
         Query<X> q = createQuery();
         q.filter(Filters.eq("username", username));
         return q;
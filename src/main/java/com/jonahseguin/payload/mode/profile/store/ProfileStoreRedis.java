@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2019 Jonah Seguin.  All rights reserved.  You may not modify, decompile, distribute or use any code/text contained in this document(plugin) without explicit signed permission from Jonah Seguin.
+ * www.jonahseguin.com
+ */
+
+package com.jonahseguin.payload.mode.profile.store;
+
+import com.google.common.base.Preconditions;
+import com.jonahseguin.payload.database.codec.BsonBytes;
+import com.jonahseguin.payload.mode.profile.PayloadProfile;
+import com.jonahseguin.payload.mode.profile.PayloadProfileCache;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.bson.codecs.Codec;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+
+/**
+ * Short-lived Redis copy of a profile, used to hand a profile from one server to another during a handshake.
+ * The server the player is leaving writes the freshly saved profile here; the server they're joining reads it
+ * (instead of querying MongoDB) and deletes it.  Entries expire after {@code redisExpiryTimeSeconds}.
+ */
+public class ProfileStoreRedis<X extends PayloadProfile> extends ProfileCacheStore<X> {
+
+    private boolean running = false;
+
+    public ProfileStoreRedis(PayloadProfileCache<X> cache) {
+        super(cache);
+    }
+
+    private String redisKey(@Nonnull UUID uuid) {
+        return "payload-profile:" + cache.getServerSpecificName() + ":" + uuid;
+    }
+
+    private Codec<X> codec() {
+        return cache.getDatabase().getDatastore().getCodecRegistry().get(cache.getPayloadClass());
+    }
+
+    @Override
+    public Optional<X> get(@Nonnull UUID uuid) {
+        Preconditions.checkNotNull(uuid);
+        try {
+            byte[] bytes = cache.getDatabase().getRedisBinary().sync().get(redisKey(uuid));
+            if (bytes == null) {
+                return Optional.empty();
+            }
+            X payload = BsonBytes.decode(codec(), bytes);
+            if (payload != null) {
+                payload.interact();
+                payload.setLoadingSource(layerName());
+                cache.trackLoaded(payload);
+            }
+            return Optional.ofNullable(payload);
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error getting Profile from Redis Layer: " + uuid);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the profile synchronously, so it's visible to other servers as soon as this returns.
+     */
+    @Override
+    public boolean save(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        try {
+            byte[] bytes = BsonBytes.encode(codec(), payload);
+            cache.getDatabase().getRedisBinary().sync().setex(redisKey(payload.getUniqueId()), cache.getSettings().getRedisExpiryTimeSeconds(), bytes);
+            return true;
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error saving Profile to Redis Layer: " + payload.getUsername());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean has(@Nonnull UUID uuid) {
+        Preconditions.checkNotNull(uuid);
+        try {
+            return cache.getDatabase().getRedisBinary().sync().exists(redisKey(uuid)) > 0;
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error checking if Profile exists in Redis Layer: " + uuid);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean has(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        return has(payload.getUniqueId());
+    }
+
+    @Override
+    public void remove(@Nonnull UUID uuid) {
+        Preconditions.checkNotNull(uuid);
+        try {
+            cache.getDatabase().getRedisBinary().async().del(redisKey(uuid));
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error removing Profile from Redis Layer: " + uuid);
+        }
+    }
+
+    @Override
+    public void remove(@Nonnull X payload) {
+        Preconditions.checkNotNull(payload);
+        remove(payload.getUniqueId());
+    }
+
+    @Nonnull
+    @Override
+    public Collection<X> getAll() {
+        // Only profiles mid-handoff live here
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int cleanup() {
+        // Entries expire on their own
+        return 0;
+    }
+
+    @Override
+    public long clear() {
+        try {
+            List<String> keys = scanKeys();
+            if (!keys.isEmpty()) {
+                return cache.getDatabase().getRedisBinary().sync().del(keys.toArray(new String[0]));
+            }
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error clearing Profile Redis Layer");
+        }
+        return 0;
+    }
+
+    @Override
+    public long deleteInvalids() {
+        return 0;
+    }
+
+    @Override
+    public long size() {
+        try {
+            return scanKeys().size();
+        } catch (Exception ex) {
+            cache.getErrorService().capture(ex, "Error counting Profiles in Redis Layer");
+            return 0;
+        }
+    }
+
+    private List<String> scanKeys() {
+        RedisCommands<String, byte[]> sync = cache.getDatabase().getRedisBinary().sync();
+        ScanArgs args = ScanArgs.Builder.matches("payload-profile:" + cache.getServerSpecificName() + ":*").limit(500);
+        List<String> keys = new ArrayList<>();
+        ScanCursor cursor = ScanCursor.INITIAL;
+        do {
+            KeyScanCursor<String> result = sync.scan(cursor, args);
+            keys.addAll(result.getKeys());
+            cursor = result;
+        } while (!cursor.isFinished());
+        return keys;
+    }
+
+    @Override
+    public boolean start() {
+        if (cache.getDatabase().getRedisBinary() == null || !cache.getDatabase().getRedisBinary().isOpen()) {
+            cache.getErrorService().capture("Error initializing Redis Profile Layer: Redis is not connected");
+            return false;
+        }
+        running = true;
+        return true;
+    }
+
+    @Override
+    public boolean shutdown() {
+        running = false;
+        // Connection is closed by the database
+        return true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Nonnull
+    @Override
+    public String layerName() {
+        return "Profile Redis";
+    }
+
+    @Override
+    public boolean isDatabase() {
+        return false;
+    }
+}
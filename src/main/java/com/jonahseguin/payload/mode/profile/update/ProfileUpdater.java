@@ -148,7 +148,11 @@ public class ProfileUpdater<X extends PayloadProfile> implements Service {
             document.append(KEY_MODE, MODE_OK);
             document.append(KEY_IDENTIFIER, identifierString);
             final String json = document.toJson();
-            cache.runAsyncImmediately(() -> database.getRedis().async().publish(channel, json));
+            database.getRedis().async().publish(channel, json).whenComplete((receivers, ex) -> {
+                if (ex != null) {
+                    cache.getErrorService().capture(ex, "Error with sending OK reply in ProfileUpdater to server: '" + sourceServerString + "' for Payload with identifier: '" + identifierString + "'");
+                }
+            });
             cache.getErrorService().debug("Replied OK for save request for Payload: '" + identifierString + "' from server: '" + sourceServerString + "'");
         } catch (Exception ex) {
             cache.getErrorService().capture(ex, "Error with sending OK reply in ProfileUpdater to server: '" + sourceServerString + "' for Payload with identifier: '" + identifierString + "'");
@@ -167,7 +171,11 @@ public class ProfileUpdater<X extends PayloadProfile> implements Service {
             document.append(KEY_TARGET_SERVER, targetServerName);
             final String json = document.toJson();
             waitingReply.put(payload.getIdentifier().toString(), callback);
-            cache.runAsyncImmediately(() -> database.getRedis().async().publish(channel, json));
+            database.getRedis().async().publish(channel, json).whenComplete((receivers, ex) -> {
+                if (ex != null) {
+                    cache.getErrorService().capture(ex, "Failed to request save from ProfileUpdater for Payload: " + cache.keyToString(payload.getIdentifier()));
+                }
+            });
             cache.getErrorService().debug("Requested save for Payload '" + payload.getIdentifier().toString() + "' from server: '" + targetServerName + "'");
             return true;
         } catch (Exception ex) {
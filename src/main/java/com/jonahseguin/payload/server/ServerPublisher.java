@@ -7,7 +7,6 @@ package com.jonahseguin.payload.server;
 
 import com.google.common.base.Preconditions;
 import org.bson.Document;
-import org.bukkit.Bukkit;
 
 import java.util.UUID;
 
@@ -24,14 +23,7 @@ public class ServerPublisher {
         clonedDoc.put("uuid", playerUUID);
         clonedDoc.put("mustBeOnline", mustBeOnline);
         payloadServerService.getDatabase().getErrorService().debug("Payload Server Service: Publishing Player Event to " + playerUUID.toString());
-        this.payloadServerService.getPayloadPlugin().getServer().getScheduler().runTaskAsynchronously(payloadServerService.getPayloadPlugin(), () -> {
-            try {
-                payloadServerService.getDatabase().getRedis().async().publish(payloadServerService.getDatabase().generatePrefixedChannelName(ServerEvent.PLAYER_EVENT.getEvent()), clonedDoc.toJson());
-            } catch (Exception ex) {
-                payloadServerService.getDatabase().getErrorService().capture(ex, "Payload Server Service: Error publishing PLAYER_EVENT event");
-            }
-        });
-
+        publish(ServerEvent.PLAYER_EVENT, clonedDoc.toJson());
     }
 
     public void publishServerEvent(String destinationServer, Document data) {
@@ -40,13 +32,7 @@ public class ServerPublisher {
             clonedDoc.put("destination-server", destinationServer);
 
         payloadServerService.getDatabase().getErrorService().debug("Payload Server Service: Publishing Server Event to " + destinationServer);
-        this.payloadServerService.getPayloadPlugin().getServer().getScheduler().runTaskAsynchronously(payloadServerService.getPayloadPlugin(), () -> {
-            try {
-                payloadServerService.getDatabase().getRedis().async().publish(payloadServerService.getDatabase().generatePrefixedChannelName(ServerEvent.SERVER_EVENT.getEvent()), clonedDoc.toJson());
-            }catch(Exception ex) {
-                payloadServerService.getDatabase().getErrorService().capture(ex, "Payload Server Service: Error publishing SERVER_EVENT event");
-            }
-        });
+        publish(ServerEvent.SERVER_EVENT, clonedDoc.toJson());
     }
 
     /**
@@ -58,23 +44,11 @@ public class ServerPublisher {
         pingReply.put("server", destination);
         pingReply.put("sender", payloadServerService.getThisServer().getName());
 
-        this.payloadServerService.getPayloadPlugin().getServer().getScheduler().runTaskAsynchronously(payloadServerService.getPayloadPlugin(), () -> {
-            try{
-                payloadServerService.getDatabase().getRedis().async().publish(payloadServerService.getDatabase().generatePrefixedChannelName(ServerEvent.PING_REPLY.getEvent()), pingReply.toJson());
-            }catch(Exception ex) {
-                payloadServerService.getDatabase().getErrorService().capture(ex, "Payload Server Service: Error publishing PING_REPLY event");
-            }
-        });
+        publish(ServerEvent.PING_REPLY, pingReply.toJson());
     }
 
     public void publishPing() {
-        this.payloadServerService.getPayloadPlugin().getServer().getScheduler().runTaskAsynchronously(payloadServerService.getPayloadPlugin(), () -> {
-            try {
-                payloadServerService.getDatabase().getRedis().async().publish(payloadServerService.getDatabase().generatePrefixedChannelName(ServerEvent.PING.getEvent()), payloadServerService.getThisServer().getName());
-            } catch (Exception ex) {
-                payloadServerService.getDatabase().getErrorService().capture(ex, "Payload Server Service: Error publishing PING event");
-            }
-        });
+        publish(ServerEvent.PING, payloadServerService.getThisServer().getName());
     }
 
     public void publishJoin() {
@@ -85,13 +59,7 @@ public class ServerPublisher {
         Preconditions.checkNotNull(ServerEvent.JOIN.getEvent(), "Join event");
         Preconditions.checkNotNull(payloadServerService.getThisServer(), "thisServer");
         Preconditions.checkNotNull(payloadServerService.getThisServer().getName(), "thisServer#name");
-        this.payloadServerService.getPayloadPlugin().getServer().getScheduler().runTaskAsynchronously(payloadServerService.getPayloadPlugin(), () -> {
-            try {
-                payloadServerService.getDatabase().getRedis().async().publish(payloadServerService.getDatabase().generatePrefixedChannelName(ServerEvent.JOIN.getEvent()), payloadServerService.getThisServer().getName());
-            } catch (Exception ex) {
-                payloadServerService.getDatabase().getErrorService().capture(ex, "Payload Server Service: Error publishing JOIN event");
-            }
-        });
+        publish(ServerEvent.JOIN, payloadServerService.getThisServer().getName());
     }
 
     public void publishQuit() {
@@ -100,16 +68,27 @@ public class ServerPublisher {
     }
 
     public void publishUpdateName(String oldName, String newName) {
-        this.payloadServerService.getPayloadPlugin().getServer().getScheduler().runTaskAsynchronously(payloadServerService.getPayloadPlugin(), () -> {
-            try {
-                Document data = new Document();
-                data.append("old", oldName);
-                data.append("new", newName);
-                payloadServerService.getDatabase().getRedis().async().publish(payloadServerService.getDatabase().generatePrefixedChannelName(ServerEvent.UPDATE_NAME.getEvent()), data.toJson());
-            } catch (Exception ex) {
-                payloadServerService.getDatabase().getErrorService().capture(ex, "Payload Server Service: Error publishing UPDATE_NAME event");
-            }
-        });
+        Document data = new Document();
+        data.append("old", oldName);
+        data.append("new", newName);
+        publish(ServerEvent.UPDATE_NAME, data.toJson());
+    }
+
+    /**
+     * Publishes straight on the shared Lettuce connection.  The async API only queues the command, so there's no
+     * need to hop onto a Bukkit async task first; failures are reported when the command completes.
+     */
+    private void publish(ServerEvent event, String message) {
+        try {
+            payloadServerService.getDatabase().getRedis().async().publish(payloadServerService.getDatabase().generatePrefixedChannelName(event.getEvent()), message)
+                    .whenComplete((receivers, ex) -> {
+                        if (ex != null) {
+                            payloadServerService.getDatabase().getErrorService().capture(ex, "Payload Server Service: Error publishing " + event.name() + " event");
+                        }
+                    });
+        } catch (Exception ex) {
+            payloadServerService.getDatabase().getErrorService().capture(ex, "Payload Server Service: Error publishing " + event.name() + " event");
+        }
     }
 
 }